@@ -43,4 +43,5 @@ if exist %frameworkdir%\%jarfile% goto JarFileOk
 
 set jarpath=%frameworkdir%\%jarfile%
 
+rem on JDK 16+, --add-modules jdk.incubator.vector opts in to the SIMD pixel scans
 call "%java_exe%" "-Djava.ext.dirs=%frameworkdir%" -jar %jarpath% %*
@@ -16,8 +16,16 @@
 
 package com.android.draw9patch;
 
+import com.android.draw9patch.batch.BatchTool;
+import com.android.draw9patch.ui.EditorResources;
 import com.android.draw9patch.ui.MainFrame;
 
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
@@ -41,16 +49,76 @@ public class Application {
     }
 
     public static void main(final String... args) {
-        initUserInterface();
+        if (BatchTool.isBatch(args)) {
+            System.exit(BatchTool.run(args));
+        }
+
+        final String arg = args.length > 0 ? args[0] : null;
+
+        // Everything below is independent, so run it side by side instead of one step after
+        // the other on the event dispatch thread.
+        final Startup startup = new Startup();
+        startup.submit("look-and-feel", new Callable<Void>() {
+            @Override
+            public Void call() {
+                initUserInterface();
+                return null;
+            }
+        });
+
+        Callable<BufferedImage> textures = new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() throws Exception {
+                return EditorResources.getChecker();
+            }
+        };
+        Callable<Font[]> fonts = new Callable<Font[]>() {
+            @Override
+            public Font[] call() {
+                return EditorResources.getFonts();
+            }
+        };
+
+        final Future<BufferedImage> image;
+        if (arg != null) {
+            image = startup.submit("decode", new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() throws Exception {
+                    return MainFrame.loadImage(new File(arg));
+                }
+            });
+            startup.submit("textures", textures);
+            startup.submit("fonts", fonts);
+        } else {
+            image = null;
+            // the editor is only needed once a file is opened, don't delay the first frame
+            startup.prefetch("textures", textures);
+            startup.prefetch("fonts", fonts);
+        }
+
+        startup.await();
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                String arg = args.length > 0 ? args[0] : null;
-                MainFrame frame = new MainFrame(arg);
+                MainFrame frame = new MainFrame(arg, getDecodedImage(image));
                 frame.setDefaultCloseOperation(MainFrame.EXIT_ON_CLOSE);
                 frame.setLocationRelativeTo(null);
                 frame.setVisible(true);
+                startup.reportFrameShown();
             }
         });
     }
+
+    private static BufferedImage getDecodedImage(Future<BufferedImage> image) {
+        if (image == null || !image.isDone()) {
+            return null;
+        }
+        try {
+            return image.get();
+        } catch (Exception e) {
+            // MainFrame will try again and fall back to the open file panel
+            return null;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch;
+
+import com.android.draw9patch.jfr.StartupPhaseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs independent initialization steps on background threads so that they overlap, and
+ * records how long each of them took. Timings are printed to stderr when the
+ * {@link #TIMINGS_PROPERTY} system property is set to true.
+ */
+class Startup {
+    static final String TIMINGS_PROPERTY = "draw9patch.startupTimings";
+
+    private final long origin = System.nanoTime();
+    private final ExecutorService executor;
+    private final List<Phase> phases = new ArrayList<Phase>();
+
+    Startup() {
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "draw9patch-startup-" + count++);
+                // prefetched phases must never keep the VM alive
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /** Starts a phase that {@link #await()} will wait for. */
+    <T> Future<T> submit(String name, Callable<T> task) {
+        return start(name, task, true);
+    }
+
+    /**
+     * Starts a phase whose result is only useful later on, so {@link #await()} does not wait
+     * for it.
+     */
+    <T> Future<T> prefetch(String name, Callable<T> task) {
+        return start(name, task, false);
+    }
+
+    private synchronized <T> Future<T> start(final String name, final Callable<T> task,
+                                             boolean required) {
+        final Phase phase = new Phase(name, required);
+        phases.add(phase);
+        Future<T> future = executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                StartupPhaseEvent event = new StartupPhaseEvent();
+                event.begin();
+                phase.start = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    T result = task.call();
+                    succeeded = true;
+                    return result;
+                } finally {
+                    phase.end = System.nanoTime();
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.phase = name;
+                        event.succeeded = succeeded;
+                        event.commit();
+                    }
+                }
+            }
+        });
+        phase.future = future;
+        return future;
+    }
+
+    /**
+     * Waits for every phase started with {@link #submit(String, Callable)}. Failures are
+     * reported but do not abort startup: the UI falls back to loading what it needs itself.
+     */
+    void await() {
+        List<Phase> required = new ArrayList<Phase>();
+        synchronized (this) {
+            for (Phase phase : phases) {
+                if (phase.required) {
+                    required.add(phase);
+                }
+            }
+        }
+
+        for (Phase phase : required) {
+            try {
+                phase.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+        }
+        executor.shutdown();
+    }
+
+    /** Prints the phase timings and the time at which the main window was shown. */
+    void reportFrameShown() {
+        if (!Boolean.getBoolean(TIMINGS_PROPERTY)) {
+            return;
+        }
+
+        long shown = System.nanoTime();
+        synchronized (this) {
+            for (Phase phase : phases) {
+                if (phase.end == 0) {
+                    System.err.println(String.format("startup: %-14s still running",
+                            phase.name));
+                } else {
+                    System.err.println(String.format("startup: %-14s %5d ms (at %5d ms)",
+                            phase.name, millis(phase.end - phase.start),
+                            millis(phase.end - origin)));
+                }
+            }
+        }
+        System.err.println(String.format("startup: %-14s          (at %5d ms)", "frame shown",
+                millis(shown - origin)));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static class Phase {
+        final String name;
+        final boolean required;
+        Future<?> future;
+        volatile long start;
+        volatile long end;
+
+        Phase(String name, boolean required) {
+            this.name = name;
+            this.required = required;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.AtlasPacker;
+
+import javax.imageio.ImageIO;
+import java.awt.Insets;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Packs 9-patches into atlas pages, see {@link AtlasPacker}, and writes the pages along with a
+ * JSON file giving the location, stretch regions and padding of each sprite. Sprites are named
+ * by their path relative to the input directory, without extension. The files are decoded in
+ * parallel, then the pages are drawn and encoded in parallel.
+ */
+class AtlasCommand extends BatchCommand {
+    private static final String SIZE = "--size=";
+    private static final String SPACING = "--spacing=";
+    private static final String NAME = "--name=";
+    private static final String OUT = "--out=";
+
+    @Override
+    String getName() {
+        return "atlas";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + SIZE + "2048] [" + SPACING + "1] [" + NAME + "atlas] [" + OUT + "dir]"
+                + " <9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Packs the content of 9-patches into atlas pages with their slice metadata";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<String> paths = parseFlags(args, flags, SIZE, SPACING, NAME, OUT);
+        List<File> files = findFiles(paths, NINE_PATCHES);
+        final Map<File, String> relativePaths = getRelativePaths(paths, files);
+        final AtlasPacker packer = new AtlasPacker(getInt(flags, SIZE, 2048, 1),
+                getInt(flags, SPACING, 1, 0));
+        final String name = getOption(flags, NAME, "atlas");
+        final File out = new File(getOption(flags, OUT, "."));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create " + out);
+        }
+
+        final List<AtlasPacker.Sprite> sprites = new ArrayList<AtlasPacker.Sprite>();
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<AtlasPacker.Sprite>() {
+            @Override
+            public AtlasPacker.Sprite process(File file, byte[] data) throws IOException {
+                String spriteName = relativePaths.get(file);
+                spriteName = spriteName.substring(0,
+                        spriteName.length() - EXTENSION_9PATCH.length());
+                AtlasPacker.Sprite sprite =
+                        new AtlasPacker.Sprite(spriteName, readNinePatch(data));
+                if (!packer.fits(sprite)) {
+                    throw new IOException("larger than an atlas page");
+                }
+                return sprite;
+            }
+        }, new BatchPipeline.Listener<AtlasPacker.Sprite>() {
+            @Override
+            public void onResult(File file, AtlasPacker.Sprite sprite) {
+                sprites.add(sprite);
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        // sprites arrive in completion order, sort them so that the atlas is reproducible
+        Collections.sort(sprites, new Comparator<AtlasPacker.Sprite>() {
+            @Override
+            public int compare(AtlasPacker.Sprite s1, AtlasPacker.Sprite s2) {
+                return s1.name.compareTo(s2.name);
+            }
+        });
+        List<AtlasPacker.Page> pages = packer.pack(sprites);
+        List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+        for (final AtlasPacker.Page page : pages) {
+            tasks.add(new Callable<File>() {
+                @Override
+                public File call() throws IOException {
+                    File output = new File(out, name + "-" + page.index + EXTENSION_PNG);
+                    ImageIO.write(page.render(), "PNG", output);
+                    return output;
+                }
+            });
+        }
+
+        List<String> pageFiles = new ArrayList<String>();
+        try {
+            for (Future<File> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                File output = future.get();
+                pageFiles.add(output.getName());
+                System.out.println(output.getPath());
+            }
+            File metadata = new File(out, name + ".json");
+            writeMetadata(metadata, pageFiles, sprites);
+            System.out.println(metadata.getPath());
+        } catch (ExecutionException e) {
+            System.err.println(e.getCause().getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        System.out.println(String.format("%d sprites in %d pages", sprites.size(), pages.size()));
+        return errors == 0 ? 0 : 1;
+    }
+
+    private static int getInt(List<String> flags, String name, int defaultValue, int min) {
+        String value = getOption(flags, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + " " + value);
+    }
+
+    private static void writeMetadata(File file, List<String> pages,
+            List<AtlasPacker.Sprite> sprites) throws IOException {
+        StringBuilder json = new StringBuilder("{\"pages\":[");
+        for (int i = 0; i < pages.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(RenderServer.quote(pages.get(i)));
+        }
+        json.append("],\n\"sprites\":[");
+        for (int i = 0; i < sprites.size(); i++) {
+            AtlasPacker.Sprite sprite = sprites.get(i);
+            if (i > 0) {
+                json.append(",");
+            }
+            json.append("\n{\"name\":").append(RenderServer.quote(sprite.name));
+            json.append(String.format(",\"page\":%d,\"x\":%d,\"y\":%d,\"width\":%d,\"height\":%d",
+                    sprite.getPage(), sprite.getX(), sprite.getY(), sprite.width,
+                    sprite.height));
+            appendRanges(json, "stretchX", sprite.stretchX);
+            appendRanges(json, "stretchY", sprite.stretchY);
+            appendInsets(json, "padding", sprite.padding);
+            appendInsets(json, "layoutBounds", sprite.layoutBounds);
+            json.append('}');
+        }
+        json.append("]}\n");
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void appendRanges(StringBuilder json, String name, int[] ranges) {
+        json.append(",\"").append(name).append("\":[");
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(ranges[i]).append(',').append(ranges[i + 1]).append(']');
+        }
+        json.append(']');
+    }
+
+    private static void appendInsets(StringBuilder json, String name, Insets insets) {
+        json.append(String.format(",\"%s\":{\"left\":%d,\"top\":%d,\"right\":%d,\"bottom\":%d}",
+                name, insets.left, insets.top, insets.right, insets.bottom));
+    }
+}
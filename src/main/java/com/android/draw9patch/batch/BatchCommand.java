@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/** A command of the {@link BatchTool}. */
+abstract class BatchCommand {
+    static final String EXTENSION_9PATCH = ".9.png";
+    static final String EXTENSION_PNG = ".png";
+
+    /** Accepts 9-patch files. */
+    static final FileFilter NINE_PATCHES = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            return file.getName().toLowerCase(Locale.US).endsWith(EXTENSION_9PATCH);
+        }
+    };
+
+    /** Accepts plain PNG files, which are not 9-patches yet. */
+    static final FileFilter PLAIN_PNGS = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            String name = file.getName().toLowerCase(Locale.US);
+            return name.endsWith(EXTENSION_PNG) && !name.endsWith(EXTENSION_9PATCH);
+        }
+    };
+
+    /** Name of the command, used as {@code --name} on the command line. */
+    abstract String getName();
+
+    /** Options and arguments of the command. */
+    abstract String getUsage();
+
+    /** One line description of the command. */
+    abstract String getDescription();
+
+    /**
+     * Runs the command and returns the process exit code.
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    abstract int run(List<String> args);
+
+    /**
+     * Returns the files matching the filter among the given paths. Directories are searched
+     * recursively, skipping hidden entries. Each directory is listed on its own virtual thread,
+     * the files are returned in the same order as a sequential walk. Before JDK 21 the listings
+     * run on a cached pool of platform threads instead, and a directory's thread stays blocked
+     * until all its subdirectories are listed, so a deep tree holds one platform thread per
+     * pending directory.
+     */
+    static List<File> findFiles(List<String> paths, FileFilter filter) {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+        try {
+            List<File> files = new ArrayList<File>();
+            for (String path : paths) {
+                File file = new File(path);
+                if (file.isDirectory()) {
+                    files.addAll(findFiles(executor, file, filter));
+                } else if (file.isFile()) {
+                    files.add(file);
+                } else {
+                    throw new IllegalArgumentException("No such file or directory: " + path);
+                }
+            }
+            return files;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<File> findFiles(final ExecutorService executor, File directory,
+            final FileFilter filter) {
+        List<File> files = new ArrayList<File>();
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return files;
+        }
+        Arrays.sort(children);
+
+        // matching files, or the pending listing of a subdirectory, in order
+        List<Object> entries = new ArrayList<Object>();
+        for (final File child : children) {
+            if (child.isHidden()) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                entries.add(executor.submit(new Callable<List<File>>() {
+                    @Override
+                    public List<File> call() {
+                        return findFiles(executor, child, filter);
+                    }
+                }));
+            } else if (filter.accept(child)) {
+                entries.add(child);
+            }
+        }
+
+        for (Object entry : entries) {
+            if (entry instanceof File) {
+                files.add((File) entry);
+            } else {
+                try {
+                    @SuppressWarnings("unchecked")
+                    Future<List<File>> subdirectory = (Future<List<File>>) entry;
+                    files.addAll(subdirectory.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return files;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Maps the files found by {@link #findFiles} to their path relative to the argument they
+     * were found under, with '/' separators, or to their name if they were given directly.
+     * @throws IllegalArgumentException if two files have the same relative path, as when the
+     *         same name is found in directories given as separate arguments
+     */
+    static Map<File, String> getRelativePaths(List<String> paths, List<File> files) {
+        List<String> prefixes = new ArrayList<String>();
+        for (String path : paths) {
+            File root = new File(path);
+            if (root.isDirectory()) {
+                String prefix = root.getPath();
+                prefixes.add(prefix.endsWith(File.separator) ? prefix : prefix + File.separator);
+            }
+        }
+
+        Map<File, String> relativePaths = new LinkedHashMap<File, String>();
+        Map<String, File> owners = new HashMap<String, File>();
+        for (File file : files) {
+            String relativePath = file.getName();
+            for (String prefix : prefixes) {
+                if (file.getPath().startsWith(prefix)) {
+                    relativePath = file.getPath().substring(prefix.length())
+                            .replace(File.separatorChar, '/');
+                    break;
+                }
+            }
+            File owner = owners.put(relativePath, file);
+            if (owner != null) {
+                throw new IllegalArgumentException("Both " + owner + " and " + file
+                        + " map to " + relativePath + ", pass their parent directory instead");
+            }
+            relativePaths.put(file, relativePath);
+        }
+        return relativePaths;
+    }
+
+    /**
+     * Writes next to the output and renames over it, so an interrupted run never leaves a
+     * truncated image behind.
+     */
+    static void replace(File output, byte[] data) throws IOException {
+        File dir = output.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(".draw9patch", ".tmp", dir);
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /** Encodes the image as a PNG and replaces the output with it, see {@link #replace}. */
+    static void replacePng(File output, BufferedImage image) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", encoded);
+        replace(output, encoded.toByteArray());
+    }
+
+    /**
+     * Returns the image, or an ARGB copy of it if it is encoded differently, with the exact
+     * colors of its pixels.
+     */
+    static BufferedImage toArgb(BufferedImage image) {
+        return GraphicsUtilities.toArgb(image);
+    }
+
+    /** Decodes the bytes of an image file as they are encoded. */
+    static BufferedImage readImage(byte[] data) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            throw new IOException("not an image");
+        }
+        return image;
+    }
+
+    /** Decodes a 9-patch into ARGB, see {@link #readEncodedNinePatch}. */
+    static BufferedImage readNinePatch(byte[] data) throws IOException {
+        return toArgb(readEncodedNinePatch(data));
+    }
+
+    /**
+     * Decodes a 9-patch as it is encoded, checking that it is large enough to have a border and
+     * content.
+     */
+    static BufferedImage readEncodedNinePatch(byte[] data) throws IOException {
+        BufferedImage image = readImage(data);
+        if (image.getWidth() < 3 || image.getHeight() < 3) {
+            throw new IOException("not a 9-patch, smaller than 3x3 pixels");
+        }
+        return image;
+    }
+
+    /**
+     * Splits the arguments into the given known flags, which are removed from the list, and
+     * returns the remaining paths. Known flags ending with '=' take a value, see
+     * {@link #getOption}.
+     */
+    static List<String> parseFlags(List<String> args, List<String> flags, String... known) {
+        List<String> paths = new ArrayList<String>();
+        List<String> knownFlags = Arrays.asList(known);
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                String name = arg.contains("=") ? arg.substring(0, arg.indexOf('=') + 1) : arg;
+                if (!knownFlags.contains(name)) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                flags.add(arg);
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No input files");
+        }
+        return paths;
+    }
+
+    /** Returns the value given to a flag such as {@code --name=}, or the default. */
+    static String getOption(List<String> flags, String name, String defaultValue) {
+        for (String flag : flags) {
+            if (flag.startsWith(name)) {
+                return flag.substring(name.length());
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes files in two stages. Files are read on virtual threads, so that slow or network
+ * mounted trees don't leave cores idle, and decoded and processed on a pool of platform threads
+ * sized to the number of cores. Bounded queues between the stages keep the number of files held
+ * in memory constant. Results are handed to a listener on the calling thread as soon as each
+ * file is done, so output is streamed and listeners do not need to be thread-safe.
+ */
+class BatchPipeline {
+    /** Files being read or waiting to be processed, per core. */
+    private static final int QUEUED_FILES_PER_CORE = 4;
+
+    interface Task<R> {
+        /** Processes the file, whose content has already been read. */
+        R process(File file, byte[] data) throws Exception;
+    }
+
+    interface Listener<R> {
+        void onResult(File file, R result);
+
+        void onError(File file, Exception e);
+    }
+
+    /** Runs the task over all the files and returns the number of files that failed. */
+    static <R> int run(final List<File> files, final Task<R> task, Listener<R> listener) {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final int capacity = threads * QUEUED_FILES_PER_CORE;
+
+        final BlockingQueue<Input> inputs = new ArrayBlockingQueue<Input>(capacity);
+        final BlockingQueue<Outcome<R>> outcomes = new ArrayBlockingQueue<Outcome<R>>(capacity);
+        final Semaphore reads = new Semaphore(capacity);
+
+        final ExecutorService readers = VirtualThreads.newThreadPerTaskExecutor();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Thread feeder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (final File file : files) {
+                        reads.acquire();
+                        try {
+                            readers.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        inputs.put(read(file));
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    } finally {
+                                        reads.release();
+                                    }
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            // every file must produce an outcome, or the caller would wait
+                            // forever
+                            reads.release();
+                            inputs.put(new Input(file, null,
+                                    new Exception("not read, the readers were shut down", e)));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "batch-reader");
+        feeder.setDaemon(true);
+
+        int errors = 0;
+        try {
+            feeder.start();
+
+            // each worker claims a slot before taking an input, so that all of them stop
+            // once every file has been claimed
+            final AtomicInteger claimed = new AtomicInteger();
+            for (int i = 0; i < threads; i++) {
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            while (claimed.getAndIncrement() < files.size()) {
+                                Input input = inputs.take();
+                                outcomes.put(process(input, task));
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                Outcome<R> outcome;
+                try {
+                    outcome = outcomes.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return errors + files.size() - i;
+                }
+
+                if (outcome.error != null) {
+                    errors++;
+                    listener.onError(outcome.file, outcome.error);
+                } else {
+                    listener.onResult(outcome.file, outcome.result);
+                }
+            }
+        } finally {
+            feeder.interrupt();
+            readers.shutdownNow();
+            workers.shutdownNow();
+        }
+        return errors;
+    }
+
+    private static Input read(File file) {
+        try {
+            return new Input(file, Files.readAllBytes(file.toPath()), null);
+        } catch (Exception e) {
+            return new Input(file, null, e);
+        } catch (Error e) {
+            // as in process, every file must produce an input
+            return new Input(file, null, new Exception(e.toString(), e));
+        }
+    }
+
+    private static <R> Outcome<R> process(Input input, Task<R> task) {
+        if (input.error != null) {
+            return new Outcome<R>(input.file, null, input.error);
+        }
+        try {
+            return new Outcome<R>(input.file, task.process(input.file, input.data), null);
+        } catch (Exception e) {
+            return new Outcome<R>(input.file, null, e);
+        } catch (Error e) {
+            // every input must produce an outcome, or the caller would wait forever
+            return new Outcome<R>(input.file, null, new Exception(e.toString(), e));
+        }
+    }
+
+    private static class Input {
+        final File file;
+        final byte[] data;
+        final Exception error;
+
+        Input(File file, byte[] data, Exception error) {
+            this.file = file;
+            this.data = data;
+            this.error = error;
+        }
+    }
+
+    private static class Outcome<R> {
+        final File file;
+        final R result;
+        final Exception error;
+
+        Outcome(File file, R result, Exception error) {
+            this.file = file;
+            this.result = result;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Command line entry point for the batch commands, which run headless over files and whole
+ * resource trees: {@code draw9patch --<command> [options] <files or directories>}.
+ */
+public class BatchTool {
+    private static final BatchCommand[] COMMANDS = {
+            new InferCommand(),
+            new RepairCommand(),
+            new MinimizeCommand(),
+            new OptimizeCommand(),
+            new DedupCommand(),
+            new InsetsCommand(),
+            new MatrixCommand(),
+            new AtlasCommand(),
+            new SlicesCommand(),
+            new ServeCommand(),
+    };
+
+    /** Returns true if the arguments ask for a batch command instead of the editor. */
+    public static boolean isBatch(String... args) {
+        return args.length > 0 && args[0].startsWith("--");
+    }
+
+    /** Runs the batch command named by the first argument and returns the exit code. */
+    public static int run(String... args) {
+        System.setProperty("java.awt.headless", "true");
+
+        String name = args[0].substring(2);
+        for (BatchCommand command : COMMANDS) {
+            if (command.getName().equals(name)) {
+                try {
+                    return command.run(Arrays.asList(args).subList(1, args.length));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    printUsage(System.err);
+                    return 1;
+                }
+            }
+        }
+
+        printUsage(System.err);
+        return 1;
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: draw9patch [file]");
+        out.println("       draw9patch --<command> [options] <files or directories>");
+        out.println();
+        out.println("Commands:");
+        for (BatchCommand command : COMMANDS) {
+            out.println(String.format("  --%s %s", command.getName(), command.getUsage()));
+            out.println(String.format("      %s", command.getDescription()));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.NinePatchFingerprint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds 9-patches that decode to the same pixels, see {@link NinePatchFingerprint}. Reports
+ * exact duplicates, and images with the same art but different markers.
+ */
+class DedupCommand extends BatchCommand {
+    @Override
+    String getName() {
+        return "dedup";
+    }
+
+    @Override
+    String getUsage() {
+        return "<9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Reports 9-patches with identical pixels, with the same or different patches";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<File> files = findFiles(parseFlags(args, new ArrayList<String>()), NINE_PATCHES);
+
+        // results arrive in completion order, they are grouped in discovery order below
+        final Map<File, NinePatchFingerprint> fingerprints =
+                new HashMap<File, NinePatchFingerprint>();
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<NinePatchFingerprint>() {
+            @Override
+            public NinePatchFingerprint process(File file, byte[] data) throws IOException {
+                return NinePatchFingerprint.compute(readEncodedNinePatch(data));
+            }
+        }, new BatchPipeline.Listener<NinePatchFingerprint>() {
+            @Override
+            public void onResult(File file, NinePatchFingerprint fingerprint) {
+                fingerprints.put(file, fingerprint);
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        // content hash -> border hash -> files, in discovery order
+        Map<String, Map<String, List<File>>> groups =
+                new LinkedHashMap<String, Map<String, List<File>>>();
+        for (File file : files) {
+            NinePatchFingerprint fingerprint = fingerprints.get(file);
+            if (fingerprint == null) {
+                continue;
+            }
+            Map<String, List<File>> borders = groups.get(fingerprint.contentHash);
+            if (borders == null) {
+                borders = new LinkedHashMap<String, List<File>>();
+                groups.put(fingerprint.contentHash, borders);
+            }
+            List<File> same = borders.get(fingerprint.borderHash);
+            if (same == null) {
+                same = new ArrayList<File>();
+                borders.put(fingerprint.borderHash, same);
+            }
+            same.add(file);
+        }
+
+        int duplicates = 0;
+        long wasted = 0;
+        System.out.println("Exact duplicates:");
+        for (Map<String, List<File>> borders : groups.values()) {
+            for (List<File> same : borders.values()) {
+                if (same.size() > 1) {
+                    printGroup(same);
+                    duplicates += same.size() - 1;
+                    for (File file : same.subList(1, same.size())) {
+                        wasted += file.length();
+                    }
+                }
+            }
+        }
+
+        int variants = 0;
+        System.out.println("Same art, different patches:");
+        for (Map<String, List<File>> borders : groups.values()) {
+            if (borders.size() > 1) {
+                List<File> all = new ArrayList<File>();
+                for (List<File> same : borders.values()) {
+                    all.addAll(same);
+                }
+                printGroup(all);
+                variants++;
+            }
+        }
+
+        System.out.println(String.format(
+                "%d files, %d redundant copies (%d bytes), %d images sliced in several ways",
+                files.size(), duplicates, wasted, variants));
+        return errors == 0 ? 0 : 1;
+    }
+
+    private static void printGroup(List<File> files) {
+        for (File file : files) {
+            System.out.println("  " + file.getPath());
+        }
+        System.out.println();
+    }
+}
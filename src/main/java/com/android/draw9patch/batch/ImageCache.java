@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.NinePatchStretcher;
+import com.android.draw9patch.ui.PatchInfo;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of decoded 9-patches, shared by all the requests of the server, so
+ * that repeated queries about the same asset skip decoding and parsing.
+ */
+class ImageCache {
+    /** A decoded 9-patch and what was computed from it. */
+    static class Entry {
+        final BufferedImage image;
+        final PatchInfo patchInfo;
+        final NinePatchStretcher stretcher;
+
+        Entry(BufferedImage image) {
+            this.image = image;
+            patchInfo = new PatchInfo(image);
+            stretcher = new NinePatchStretcher(image, patchInfo);
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxPixels;
+    private long pixels;
+
+    /**
+     * @param maxEntries number of 9-patches kept
+     * @param maxPixels total number of pixels kept, so that a few large images cannot exhaust
+     *        the heap. The most recent entry is kept even if it is larger.
+     */
+    ImageCache(int maxEntries, long maxPixels) {
+        this.maxEntries = maxEntries;
+        this.maxPixels = maxPixels;
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            pixels -= getPixels(previous);
+        }
+        pixels += getPixels(entry);
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > 1 && (entries.size() > maxEntries || pixels > maxPixels)) {
+            pixels -= getPixels(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long getPixels(Entry entry) {
+        return (long) entry.image.getWidth() * entry.image.getHeight();
+    }
+}
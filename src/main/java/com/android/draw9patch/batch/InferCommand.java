@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.ImageEditorPanel;
+import com.android.draw9patch.ui.StretchInference;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts plain PNG files to 9-patches whose stretch markers are inferred from the pixels,
+ * see {@link StretchInference}.
+ */
+class InferCommand extends BatchCommand {
+    private static final String FORCE = "--force";
+    private static final String DRY_RUN = "--dry-run";
+
+    @Override
+    String getName() {
+        return "infer";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + FORCE + "] [" + DRY_RUN + "] <png files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Writes a .9.png next to each .png with stretch markers on its uniform regions";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<File> files = findFiles(parseFlags(args, flags, FORCE, DRY_RUN), PLAIN_PNGS);
+        final boolean force = flags.contains(FORCE);
+        final boolean dryRun = flags.contains(DRY_RUN);
+
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<String>() {
+            @Override
+            public String process(File file, byte[] data) throws IOException {
+                BufferedImage image = readImage(data);
+
+                File output = getOutput(file);
+                if (output.exists() && !force && !dryRun) {
+                    throw new IOException(output.getName() + " exists, use " + FORCE);
+                }
+
+                BufferedImage ninePatch = ImageEditorPanel.convertTo9Patch(image);
+                StretchInference.Suggestion suggestion = StretchInference.infer(ninePatch);
+                if (!dryRun) {
+                    StretchInference.apply(ninePatch, suggestion);
+                    ImageIO.write(ninePatch, "PNG", output);
+                }
+                return suggestion + " -> " + output.getName();
+            }
+        }, new BatchPipeline.Listener<String>() {
+            @Override
+            public void onResult(File file, String result) {
+                System.out.println(file.getPath() + ": " + result);
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        return errors == 0 ? 0 : 1;
+    }
+
+    private static File getOutput(File file) {
+        String name = file.getName();
+        name = name.substring(0, name.length() - EXTENSION_PNG.length()) + EXTENSION_9PATCH;
+        return new File(file.getParentFile(), name);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.PatchInfo;
+
+import java.awt.Insets;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the optical insets described by the layout bound markers of 9-patches, one tab
+ * separated line per file: path, content width and height, then left, top, right and bottom.
+ */
+class InsetsCommand extends BatchCommand {
+    @Override
+    String getName() {
+        return "insets";
+    }
+
+    @Override
+    String getUsage() {
+        return "<9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Prints the content size and layout bound insets of each 9-patch";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<File> files = findFiles(parseFlags(args, new ArrayList<String>()), NINE_PATCHES);
+
+        System.out.println("path\twidth\theight\tleft\ttop\tright\tbottom");
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<String>() {
+            @Override
+            public String process(File file, byte[] data) throws IOException {
+                BufferedImage image = readNinePatch(data);
+                Insets insets = new PatchInfo(image).layoutBounds;
+                return String.format("%d\t%d\t%d\t%d\t%d\t%d",
+                        image.getWidth() - 2, image.getHeight() - 2,
+                        insets.left, insets.top, insets.right, insets.bottom);
+            }
+        }, new BatchPipeline.Listener<String>() {
+            @Override
+            public void onResult(File file, String result) {
+                System.out.println(file.getPath() + "\t" + result);
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        return errors == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.NinePatchStretcher;
+import com.android.draw9patch.ui.SizeMatrix;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders each 9-patch at a list of device sizes into a contact sheet, see {@link SizeMatrix}.
+ * The sheets are written to an output directory rather than next to the 9-patches, so that they
+ * don't end up in resource directories.
+ */
+class MatrixCommand extends BatchCommand {
+    private static final String WIDTHS = "--widths=";
+    private static final String HEIGHTS = "--heights=";
+    private static final String OUT = "--out=";
+
+    private static final String SUFFIX = "-sizes.png";
+
+    @Override
+    String getName() {
+        return "matrix";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + WIDTHS + "48,96,...] [" + HEIGHTS + "32,48,...] [" + OUT + "dir]"
+                + " <9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Writes a contact sheet of each 9-patch rendered at every width and height";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<File> files = findFiles(parseFlags(args, flags, WIDTHS, HEIGHTS, OUT), NINE_PATCHES);
+        final int[] widths = SizeMatrix.parseSizes(getOption(flags, WIDTHS,
+                toString(SizeMatrix.DEFAULT_WIDTHS)));
+        final int[] heights = SizeMatrix.parseSizes(getOption(flags, HEIGHTS,
+                toString(SizeMatrix.DEFAULT_HEIGHTS)));
+        final File out = new File(getOption(flags, OUT, "."));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create " + out);
+        }
+
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<File>() {
+            @Override
+            public File process(File file, byte[] data) throws IOException {
+                BufferedImage image = readNinePatch(data);
+                BufferedImage sheet;
+                try {
+                    sheet = SizeMatrix.render(new NinePatchStretcher(image), widths, heights);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted");
+                }
+
+                String name = file.getName();
+                name = name.substring(0, name.length() - EXTENSION_9PATCH.length()) + SUFFIX;
+                File output = new File(out, name);
+                ImageIO.write(sheet, "PNG", output);
+                return output;
+            }
+        }, new BatchPipeline.Listener<File>() {
+            @Override
+            public void onResult(File file, File output) {
+                System.out.println(file.getPath() + " -> " + output.getPath());
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        return errors == 0 ? 0 : 1;
+    }
+
+    private static String toString(int[] sizes) {
+        String text = Arrays.toString(sizes);
+        return text.substring(1, text.length() - 1);
+    }
+}
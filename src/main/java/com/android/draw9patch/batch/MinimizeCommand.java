@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.NinePatchMinimizer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Collapses uniform stretch regions of 9-patches, see {@link NinePatchMinimizer}. */
+class MinimizeCommand extends BatchCommand {
+    private static final String DRY_RUN = "--dry-run";
+
+    @Override
+    String getName() {
+        return "minimize";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + DRY_RUN + "] <9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Collapses uniform stretch regions in place and reports the size savings";
+    }
+
+    private static class Savings {
+        final int width;
+        final int height;
+        final NinePatchMinimizer.Result result;
+        final long before;
+        final long after;
+
+        Savings(int width, int height, NinePatchMinimizer.Result result, long before,
+                long after) {
+            this.width = width;
+            this.height = height;
+            this.result = result;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<File> files = findFiles(parseFlags(args, flags, DRY_RUN), NINE_PATCHES);
+        final boolean dryRun = flags.contains(DRY_RUN);
+
+        final long[] totals = new long[3];
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<Savings>() {
+            @Override
+            public Savings process(File file, byte[] data) throws IOException {
+                BufferedImage image = readNinePatch(data);
+                NinePatchMinimizer.Result result = NinePatchMinimizer.minimize(image);
+                long before = file.length();
+                if (result.image == image) {
+                    return new Savings(image.getWidth(), image.getHeight(), result, before,
+                            before);
+                }
+
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                ImageIO.write(result.image, "PNG", encoded);
+                // a smaller image can still compress worse, keep the original in that case
+                long after = Math.min(before, encoded.size());
+                if (!dryRun && encoded.size() < before) {
+                    replace(file, encoded.toByteArray());
+                }
+                return new Savings(image.getWidth(), image.getHeight(), result, before, after);
+            }
+        }, new BatchPipeline.Listener<Savings>() {
+            @Override
+            public void onResult(File file, Savings savings) {
+                totals[0] += savings.before;
+                totals[1] += savings.after;
+                if (savings.after < savings.before) {
+                    totals[2]++;
+                    System.out.println(String.format("%s: %dx%d -> %dx%d, %d -> %d bytes (-%d%%)",
+                            file.getPath(), savings.width, savings.height,
+                            savings.result.image.getWidth(), savings.result.image.getHeight(),
+                            savings.before, savings.after,
+                            100 * (savings.before - savings.after) / savings.before));
+                }
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        long saved = totals[0] - totals[1];
+        System.out.println(String.format("%d of %d 9-patches %s, %d -> %d bytes (-%d bytes, -%d%%)",
+                totals[2], files.size(), dryRun ? "can be minimized" : "minimized", totals[0],
+                totals[1], saved, totals[0] > 0 ? 100 * saved / totals[0] : 0));
+        return errors == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.PngOptimizer;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Re-encodes PNGs in place with the smallest lossless encoding, see {@link PngOptimizer}, and
+ * reports the size savings. With {@code --webp}, plain PNGs may be replaced by lossless WebP
+ * files; 9-patches always stay PNGs, which is the only format the resource compiler slices.
+ */
+class OptimizeCommand extends BatchCommand {
+    private static final String DRY_RUN = "--dry-run";
+    private static final String WEBP = "--webp";
+
+    private static final FileFilter PNGS = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            return file.getName().toLowerCase(Locale.US).endsWith(EXTENSION_PNG);
+        }
+    };
+
+    @Override
+    String getName() {
+        return "optimize";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + DRY_RUN + "] [" + WEBP + "] <PNG files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Re-encodes PNGs with the smallest lossless encoding and reports the savings";
+    }
+
+    private static class Savings {
+        final long before;
+        final long after;
+        final String description;
+        final File output;
+
+        Savings(long before, long after, String description, File output) {
+            this.before = before;
+            this.after = after;
+            this.description = description;
+            this.output = output;
+        }
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<File> files = findFiles(parseFlags(args, flags, DRY_RUN, WEBP), PNGS);
+        final boolean dryRun = flags.contains(DRY_RUN);
+        final boolean webp = flags.contains(WEBP);
+
+        final long[] totals = new long[3];
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<Savings>() {
+            @Override
+            public Savings process(File file, byte[] data) throws IOException {
+                if (PngOptimizer.hasColorChunks(data)) {
+                    return new Savings(data.length, data.length,
+                            "has color space chunks, not re-encoded", file);
+                }
+                boolean ninePatch = NINE_PATCHES.accept(file);
+                PngOptimizer.Encoding encoding = PngOptimizer.optimize(
+                        ninePatch ? readNinePatch(data) : readImage(data), webp && !ninePatch);
+                if (encoding.data.length >= data.length) {
+                    return new Savings(data.length, data.length, "unchanged", file);
+                }
+
+                File output = file;
+                if (PngOptimizer.WEBP.equals(encoding.format)) {
+                    String name = file.getName();
+                    name = name.substring(0, name.length() - EXTENSION_PNG.length()) + ".webp";
+                    output = new File(file.getParentFile(), name);
+                }
+                if (!dryRun) {
+                    replace(output, encoding.data);
+                    if (!output.equals(file) && !file.delete()) {
+                        throw new IOException("cannot delete after writing " + output);
+                    }
+                }
+                return new Savings(data.length, encoding.data.length, encoding.description,
+                        output);
+            }
+        }, new BatchPipeline.Listener<Savings>() {
+            @Override
+            public void onResult(File file, Savings savings) {
+                totals[0] += savings.before;
+                totals[1] += savings.after;
+                if (savings.after == savings.before && !"unchanged".equals(savings.description)) {
+                    System.out.println(file.getPath() + ": " + savings.description);
+                } else if (savings.after < savings.before) {
+                    totals[2]++;
+                    System.out.println(String.format("%s: %d -> %d bytes (-%d%%), %s%s",
+                            file.getPath(), savings.before, savings.after,
+                            100 * (savings.before - savings.after) / savings.before,
+                            savings.description, savings.output.equals(file)
+                                    ? "" : " -> " + savings.output.getName()));
+                }
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        long saved = totals[0] - totals[1];
+        System.out.println(String.format("%d of %d files %s, %d -> %d bytes (-%d bytes, -%d%%)",
+                totals[2], files.size(), dryRun ? "can be optimized" : "optimized", totals[0],
+                totals[1], saved, totals[0] > 0 ? 100 * saved / totals[0] : 0));
+        return errors == 0 ? 0 : 1;
+    }
+}
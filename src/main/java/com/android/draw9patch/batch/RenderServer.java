@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.CorruptPatch;
+import com.android.draw9patch.ui.PatchInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP server on the loopback interface that answers questions about 9-patches, so that scripts
+ * can query the tool many times without paying for a JVM start each time. The 9-patch is either
+ * POSTed as PNG bytes or named by a {@code path} query parameter:
+ * <ul>
+ * <li>{@code /info} returns the patches, padding and layout bounds as JSON</li>
+ * <li>{@code /bad} returns the bad patches as JSON</li>
+ * <li>{@code /render?width=..&height=..} returns the content stretched to that size as PNG</li>
+ * </ul>
+ * Each request is handled on its own virtual thread when available. Decoded images are kept in
+ * a shared {@link ImageCache}. Bodies, decoded images and renders are limited in size, and at
+ * most one decode or render per core runs at a time, so that requests cannot exhaust the heap
+ * however many arrive together.
+ * <p>
+ * Requests are refused unless their Host header names the loopback interface, otherwise a web
+ * page could rebind its own host name to 127.0.0.1 and read local images through the server.
+ */
+class RenderServer {
+    /** Largest width or height that can be rendered. */
+    private static final int MAX_RENDER_SIZE = 8192;
+    /** Largest number of pixels that can be rendered, or decoded, by one request. */
+    private static final long MAX_PIXELS = 1 << 24;
+    /** Largest number of decoded pixels kept in the cache, 256MB of ARGB. */
+    private static final long MAX_CACHED_PIXELS = 1 << 26;
+    /** Largest POSTed 9-patch, in bytes. */
+    private static final int MAX_BODY_SIZE = 16 << 20;
+    /** Host names a browser sends for the loopback interface, without the port. */
+    private static final List<String> LOCAL_HOSTS = Arrays.asList(
+            "127.0.0.1", "localhost", "[::1]");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ImageCache cache;
+    /** Permits for decoding or rendering, which hold up to 128MB of pixels each. */
+    private final Semaphore workers = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    RenderServer(int port, int cacheSize) throws IOException {
+        cache = new ImageCache(cacheSize, MAX_CACHED_PIXELS);
+        executor = VirtualThreads.newThreadPerTaskExecutor();
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+
+        server.createContext("/info", new Handler() {
+            @Override
+            void respond(HttpExchange exchange, Map<String, String> query,
+                    ImageCache.Entry entry) throws IOException {
+                sendJson(exchange, 200, toJson(entry.image, entry.patchInfo));
+            }
+        });
+        server.createContext("/bad", new Handler() {
+            @Override
+            void respond(HttpExchange exchange, Map<String, String> query,
+                    ImageCache.Entry entry) throws IOException {
+                StringBuilder json = new StringBuilder("{");
+                appendRectangles(json, "badPatches",
+                        CorruptPatch.findBadPatches(entry.image, entry.patchInfo));
+                json.append('}');
+                sendJson(exchange, 200, json.toString());
+            }
+        });
+        server.createContext("/render", new Handler() {
+            @Override
+            void respond(HttpExchange exchange, Map<String, String> query,
+                    ImageCache.Entry entry) throws IOException, RequestException {
+                int width = getSize(query, "width");
+                int height = getSize(query, "height");
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new RequestException(400, "width * height must be at most "
+                            + MAX_PIXELS);
+                }
+                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                workers.acquireUninterruptibly();
+                try {
+                    ImageIO.write(entry.stretcher.render(width, height), "PNG", png);
+                } finally {
+                    workers.release();
+                }
+                send(exchange, 200, "image/png", png.toByteArray());
+            }
+        });
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /** Decodes the 9-patch of the request, or finds it in the cache, and answers with it. */
+    private abstract class Handler implements HttpHandler {
+        abstract void respond(HttpExchange exchange, Map<String, String> query,
+                ImageCache.Entry entry) throws IOException, RequestException;
+
+        @Override
+        public final void handle(HttpExchange exchange) throws IOException {
+            try {
+                checkHost(exchange.getRequestHeaders().getFirst("Host"));
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                respond(exchange, query, getEntry(exchange, query));
+            } catch (RequestException e) {
+                sendJson(exchange, e.status, "{\"error\":" + quote(e.getMessage()) + "}");
+            } catch (RuntimeException e) {
+                sendJson(exchange, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private ImageCache.Entry getEntry(HttpExchange exchange, Map<String, String> query)
+            throws IOException, RequestException {
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method)) {
+            byte[] bytes = readFully(exchange.getRequestBody(), MAX_BODY_SIZE);
+            String key = "sha1:" + sha1(bytes);
+            ImageCache.Entry entry = cache.get(key);
+            if (entry == null) {
+                try {
+                    entry = load(ImageIO.createImageInputStream(new ByteArrayInputStream(bytes)));
+                } catch (IOException e) {
+                    throw new RequestException(400, "not an image: " + e.getMessage());
+                }
+                cache.put(key, entry);
+            }
+            return entry;
+        } else if ("GET".equals(method)) {
+            String path = query.get("path");
+            if (path == null) {
+                throw new RequestException(400, "POST a PNG or GET with a path parameter");
+            }
+            File file = new File(path);
+            if (!file.isFile()) {
+                throw new RequestException(404, "no such file: " + path);
+            }
+
+            // a changed file gets a different key, the stale entry ages out
+            String key = file.getCanonicalPath() + ':' + file.lastModified() + ':'
+                    + file.length();
+            ImageCache.Entry entry = cache.get(key);
+            if (entry == null) {
+                try {
+                    entry = load(ImageIO.createImageInputStream(file));
+                } catch (IOException e) {
+                    throw new RequestException(400, path + ": " + e.getMessage());
+                }
+                cache.put(key, entry);
+            }
+            return entry;
+        } else {
+            throw new RequestException(405, "unsupported method: " + method);
+        }
+    }
+
+    private static void checkHost(String host) throws RequestException {
+        if (host != null) {
+            // strips the port, after the brackets of an IPv6 address
+            int colon = host.indexOf(':', host.startsWith("[") ? host.indexOf(']') : 0);
+            if (colon >= 0) {
+                host = host.substring(0, colon);
+            }
+            if (LOCAL_HOSTS.contains(host.toLowerCase(Locale.US))) {
+                return;
+            }
+        }
+        throw new RequestException(403, "Host must be one of " + LOCAL_HOSTS);
+    }
+
+    /** Decodes a 9-patch into an entry, waiting for a permit first. */
+    private ImageCache.Entry load(ImageInputStream in) throws IOException, RequestException {
+        workers.acquireUninterruptibly();
+        try {
+            return createEntry(BatchCommand.toArgb(decode(in)));
+        } finally {
+            workers.release();
+        }
+    }
+
+    /** Decodes the image after checking its size, so that a small PNG cannot claim gigabytes. */
+    private static BufferedImage decode(ImageInputStream in) throws IOException,
+            RequestException {
+        if (in == null) {
+            throw new IOException("cannot be read");
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("unknown format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new RequestException(413, "larger than " + MAX_PIXELS + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static ImageCache.Entry createEntry(BufferedImage image) throws RequestException {
+        if (image.getWidth() < 3 || image.getHeight() < 3) {
+            throw new RequestException(400, "not a 9-patch, smaller than 3x3 pixels");
+        }
+        return new ImageCache.Entry(image);
+    }
+
+    private static int getSize(Map<String, String> query, String name) throws RequestException {
+        String value = query.get(name);
+        if (value == null) {
+            throw new RequestException(400, "missing parameter: " + name);
+        }
+        try {
+            int size = Integer.parseInt(value);
+            if (size > 0 && size <= MAX_RENDER_SIZE) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new RequestException(400, name + " must be between 1 and " + MAX_RENDER_SIZE);
+    }
+
+    private static Map<String, String> parseQuery(String query)
+            throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static byte[] readFully(InputStream in, int maxSize) throws IOException,
+            RequestException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            if (out.size() + count > maxSize) {
+                throw new RequestException(413, "larger than " + maxSize + " bytes");
+            }
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json)
+            throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", json.getBytes("UTF-8"));
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    static String toJson(BufferedImage image, PatchInfo patchInfo) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"width\":").append(image.getWidth()).append(',');
+        json.append("\"height\":").append(image.getHeight()).append(',');
+        appendRectangles(json, "patches", patchInfo.patches);
+        json.append(',');
+        appendRectangles(json, "horizontalPatches", patchInfo.horizontalPatches);
+        json.append(',');
+        appendRectangles(json, "verticalPatches", patchInfo.verticalPatches);
+        json.append(',');
+        appendRectangles(json, "fixed", patchInfo.fixed);
+        json.append(',');
+        appendInsets(json, "padding", patchInfo.getContentPadding());
+        json.append(',');
+        appendInsets(json, "layoutBounds", patchInfo.layoutBounds);
+        json.append('}');
+        return json.toString();
+    }
+
+    private static void appendRectangles(StringBuilder json, String name,
+            List<Rectangle> rectangles) {
+        json.append(quote(name)).append(":[");
+        for (int i = 0; i < rectangles.size(); i++) {
+            Rectangle r = rectangles.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("{\"x\":%d,\"y\":%d,\"width\":%d,\"height\":%d}",
+                    r.x, r.y, r.width, r.height));
+        }
+        json.append(']');
+    }
+
+    private static void appendInsets(StringBuilder json, String name, Insets insets) {
+        json.append(quote(name)).append(String.format(
+                ":{\"left\":%d,\"top\":%d,\"right\":%d,\"bottom\":%d}",
+                insets.left, insets.top, insets.right, insets.bottom));
+    }
+
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /** A request that cannot be answered, reported to the client with the given status. */
+    private static class RequestException extends Exception {
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
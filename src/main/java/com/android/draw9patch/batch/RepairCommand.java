@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.PatchRepair;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Repairs the bad patches of 9-patches in place, see {@link PatchRepair}. */
+class RepairCommand extends BatchCommand {
+    private static final String DRY_RUN = "--dry-run";
+
+    @Override
+    String getName() {
+        return "repair";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + DRY_RUN + "] <9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Shrinks the stretch markers of bad patches to their largest uniform run";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<File> files = findFiles(parseFlags(args, flags, DRY_RUN), NINE_PATCHES);
+        final boolean dryRun = flags.contains(DRY_RUN);
+
+        final int[] repaired = new int[1];
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<List<PatchRepair.Change>>() {
+            @Override
+            public List<PatchRepair.Change> process(File file, byte[] data) throws IOException {
+                BufferedImage image = readNinePatch(data);
+                List<PatchRepair.Change> changes = PatchRepair.repair(image);
+                if (!changes.isEmpty() && !dryRun) {
+                    replacePng(file, image);
+                }
+                return changes;
+            }
+        }, new BatchPipeline.Listener<List<PatchRepair.Change>>() {
+            @Override
+            public void onResult(File file, List<PatchRepair.Change> changes) {
+                if (!changes.isEmpty()) {
+                    repaired[0]++;
+                    System.out.println(file.getPath() + ": " + changes);
+                }
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        System.out.println(String.format("%d of %d 9-patches %s", repaired[0], files.size(),
+                dryRun ? "need repairs" : "repaired"));
+        return errors == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a {@link RenderServer} until the process is stopped. Unlike the other commands it takes
+ * no input files, the 9-patches come with the requests.
+ */
+class ServeCommand extends BatchCommand {
+    private static final String PORT = "--port=";
+    private static final String CACHE = "--cache=";
+
+    private static final int DEFAULT_PORT = 9009;
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    @Override
+    String getName() {
+        return "serve";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + PORT + DEFAULT_PORT + "] [" + CACHE + DEFAULT_CACHE_SIZE + "]";
+    }
+
+    @Override
+    String getDescription() {
+        return "Answers /info, /bad and /render requests on localhost, see RenderServer";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        for (String arg : args) {
+            if (!arg.startsWith(PORT) && !arg.startsWith(CACHE)) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            flags.add(arg);
+        }
+        int port = parseInt(getOption(flags, PORT, String.valueOf(DEFAULT_PORT)), PORT);
+        int cacheSize = parseInt(getOption(flags, CACHE, String.valueOf(DEFAULT_CACHE_SIZE)),
+                CACHE);
+
+        final RenderServer server;
+        try {
+            server = new RenderServer(port, cacheSize);
+        } catch (IOException e) {
+            System.err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            return 1;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        });
+        server.start();
+        System.out.println(String.format("Listening on http://127.0.0.1:%d/ (%s)",
+                server.getAddress().getPort(),
+                VirtualThreads.isAvailable() ? "virtual threads" : "platform threads"));
+
+        // serve until killed
+        Object forever = new Object();
+        synchronized (forever) {
+            while (true) {
+                try {
+                    forever.wait();
+                } catch (InterruptedException e) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private static int parseInt(String value, String flag) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + flag + value);
+        }
+    }
+}
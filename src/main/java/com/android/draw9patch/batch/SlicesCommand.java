@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.NineSlice;
+
+import javax.imageio.ImageIO;
+import java.awt.Insets;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports 9-patches for CSS {@code border-image} and iOS resizable images, see
+ * {@link NineSlice}. The content of each 9-patch is written to the output directory under its
+ * path relative to the input directory, so that densities don't collide, and a JSON line
+ * giving its cap insets and CSS is printed as soon as the file is done. 9-patches with several
+ * stretch regions on an axis are reported as errors.
+ */
+class SlicesCommand extends BatchCommand {
+    private static final String OUT = "--out=";
+
+    @Override
+    String getName() {
+        return "slices";
+    }
+
+    @Override
+    String getUsage() {
+        return "[" + OUT + "dir] <9-patch files or directories>";
+    }
+
+    @Override
+    String getDescription() {
+        return "Exports 9-patches as images with cap insets for CSS border-image and iOS";
+    }
+
+    @Override
+    int run(List<String> args) {
+        List<String> flags = new ArrayList<String>();
+        List<String> paths = parseFlags(args, flags, OUT);
+        List<File> files = findFiles(paths, NINE_PATCHES);
+        final Map<File, String> relativePaths = getRelativePaths(paths, files);
+        final File out = new File(getOption(flags, OUT, "."));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create " + out);
+        }
+
+        int errors = BatchPipeline.run(files, new BatchPipeline.Task<String>() {
+            @Override
+            public String process(File file, byte[] data) throws IOException {
+                NineSlice slice;
+                try {
+                    slice = NineSlice.compute(readNinePatch(data));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage());
+                }
+
+                String path = relativePaths.get(file);
+                path = path.substring(0, path.length() - EXTENSION_9PATCH.length())
+                        + EXTENSION_PNG;
+                File output = new File(out, path);
+                File parent = output.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                    throw new IOException("cannot create " + parent);
+                }
+                ImageIO.write(slice.content, "PNG", output);
+
+                Insets caps = slice.capInsets;
+                return String.format("{\"path\":%s,\"image\":%s,\"width\":%d,\"height\":%d,"
+                        + "\"capInsets\":{\"top\":%d,\"left\":%d,\"bottom\":%d,\"right\":%d},"
+                        + "\"borderImageSlice\":%s,\"css\":%s}",
+                        RenderServer.quote(file.getPath()), RenderServer.quote(output.getPath()),
+                        slice.content.getWidth(), slice.content.getHeight(),
+                        caps.top, caps.left, caps.bottom, caps.right,
+                        RenderServer.quote(slice.getBorderImageSlice()),
+                        RenderServer.quote(slice.getCss(path)));
+            }
+        }, new BatchPipeline.Listener<String>() {
+            @Override
+            public void onResult(File file, String json) {
+                System.out.println(json);
+            }
+
+            @Override
+            public void onError(File file, Exception e) {
+                System.err.println(file.getPath() + ": " + e.getMessage());
+            }
+        });
+
+        return errors == 0 ? 0 : 1;
+    }
+}
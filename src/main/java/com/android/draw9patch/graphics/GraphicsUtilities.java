@@ -19,7 +19,10 @@ package com.android.draw9patch.graphics;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
 import java.awt.Graphics;
@@ -40,11 +43,21 @@ public class GraphicsUtilities {
         return getGraphicsConfiguration().createCompatibleImage(width, height);
     }
 
+    /** Colors a palette must hold exactly so that the 9-patch border can be edited. */
+    private static final int[] MARKER_COLORS = { 0, 0xFF000000, 0xFFFF0000 };
+
     public static BufferedImage toCompatibleImage(BufferedImage image) {
         if (isHeadless()) {
             return image;
         }
 
+        // paletted images stay paletted, at a quarter of the memory of ARGB
+        BufferedImage indexed = createIndexedImage(image, image.getWidth(), image.getHeight());
+        if (indexed != null) {
+            indexed.getRaster().setRect(image.getRaster());
+            return indexed;
+        }
+
         ColorModel colorModel = image.getColorModel();
         if (colorModel != null && colorModel.equals(getGraphicsConfiguration().getColorModel())) {
             return image;
@@ -74,10 +87,108 @@ public class GraphicsUtilities {
     }
 
     public static BufferedImage createTranslucentCompatibleImage(int width, int height) {
+        if (isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
         return getGraphicsConfiguration().createCompatibleImage(width, height,
                 Transparency.TRANSLUCENT);
     }
 
+    /**
+     * Returns the image, or an ARGB copy of it with the exact colors of its pixels. Drawing the
+     * image would composite it, which rounds the colors of translucent pixels.
+     */
+    public static BufferedImage toArgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage argb = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        WritableRaster raster = argb.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            if (isPaletted(image)) {
+                getPixels(image, 0, y, width, 1, row);
+            } else {
+                image.getRGB(0, y, width, 1, row, 0, width);
+            }
+            raster.setDataElements(0, y, width, 1, row);
+        }
+        return argb;
+    }
+
+    /** Returns true if the pixels of the image are indices into a palette of 256 colors or less. */
+    public static boolean isPaletted(BufferedImage image) {
+        return image.getColorModel() instanceof IndexColorModel
+                && image.getRaster().getTransferType() == DataBuffer.TYPE_BYTE
+                && image.getColorModel().getPixelSize() <= 8;
+    }
+
+    /**
+     * Returns an empty 8-bit paletted image whose palette holds the palette of the given image
+     * at the same indices, followed by the 9-patch marker colors it lacks, so that the rasters
+     * of both images can be copied into one another and markers drawn with setRGB are exact.
+     * Returns null if the image isn't paletted or its palette has no room for the markers.
+     */
+    public static BufferedImage createIndexedImage(BufferedImage image, int width, int height) {
+        if (!isPaletted(image)) {
+            return null;
+        }
+
+        IndexColorModel source = (IndexColorModel) image.getColorModel();
+        int size = source.getMapSize();
+        int[] colors = new int[256];
+        source.getRGBs(colors);
+        for (int marker : MARKER_COLORS) {
+            if (indexOf(colors, size, marker) < 0) {
+                if (size == colors.length) {
+                    return null;
+                }
+                colors[size++] = marker;
+            }
+        }
+
+        // setRGB maps any transparent color to this index, make it the exact marker color
+        IndexColorModel colorModel = new IndexColorModel(8, size, colors, 0, true,
+                indexOf(colors, size, 0), DataBuffer.TYPE_BYTE);
+        return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+    }
+
+    private static int indexOf(int[] colors, int size, int color) {
+        for (int i = 0; i < size; i++) {
+            if (colors[i] == color) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Colors of an indexed color model, kept for the color model last read. */
+    private static class Palette {
+        final IndexColorModel colorModel;
+        final int[] colors;
+
+        Palette(IndexColorModel colorModel) {
+            this.colorModel = colorModel;
+            colors = new int[Math.max(colorModel.getMapSize(), 1 << colorModel.getPixelSize())];
+            colorModel.getRGBs(colors);
+        }
+    }
+
+    private static volatile Palette lastPalette;
+
+    private static int[] getPalette(IndexColorModel colorModel) {
+        Palette palette = lastPalette;
+        if (palette == null || palette.colorModel != colorModel) {
+            palette = new Palette(colorModel);
+            lastPalette = palette;
+        }
+        return palette.colors;
+    }
+
     public static int[] getPixels(BufferedImage img, int x, int y, int w, int h, int[] pixels) {
         if (w == 0 || h == 0) {
             return new int[0];
@@ -95,6 +206,25 @@ public class GraphicsUtilities {
             return (int[]) raster.getDataElements(x, y, w, h, pixels);
         }
 
+        if (isPaletted(img)) {
+            // reads the indices and looks them up, without converting the image
+            int[] palette = getPalette((IndexColorModel) img.getColorModel());
+            Raster raster = img.getRaster();
+            if (raster.getTransferType() == DataBuffer.TYPE_BYTE
+                    && raster.getNumDataElements() == 1) {
+                byte[] indices = (byte[]) raster.getDataElements(x, y, w, h, null);
+                for (int i = 0; i < w * h; i++) {
+                    pixels[i] = palette[indices[i] & 0xff];
+                }
+            } else {
+                raster.getSamples(x, y, w, h, 0, pixels);
+                for (int i = 0; i < w * h; i++) {
+                    pixels[i] = palette[pixels[i]];
+                }
+            }
+            return pixels;
+        }
+
         // Unmanages the image
         return img.getRGB(x, y, w, h, pixels, 0, w);
     }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Emitted for every uniformity check of the patches of an image. */
+@Name("com.android.draw9patch.BadPatches")
+@Label("Bad Patches")
+@Category({"Draw 9-patch", "Analysis"})
+@Description("Search for stretchable patches that are not uniform")
+@StackTrace(false)
+public class BadPatchesEvent extends Event {
+    @Label("Image Width")
+    public int imageWidth;
+
+    @Label("Image Height")
+    public int imageHeight;
+
+    @Label("Checked Patches")
+    public int checkedPatches;
+
+    @Label("Bad Patches")
+    public int badPatches;
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Emitted for every image read from or written to disk. */
+@Name("com.android.draw9patch.ImageIo")
+@Label("Image I/O")
+@Category({"Draw 9-patch", "I/O"})
+@Description("Decode or encode of a 9-patch file")
+public class ImageIoEvent extends Event {
+    public static final String OPEN = "open";
+    public static final String SAVE = "save";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Image Width")
+    public int imageWidth;
+
+    @Label("Image Height")
+    public int imageHeight;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Emitted for every paint of the editor canvas or of a stretch preview. */
+@Name("com.android.draw9patch.Paint")
+@Label("Paint")
+@Category({"Draw 9-patch", "Rendering"})
+@Description("Paint of a 9-patch view")
+@StackTrace(false)
+public class PaintEvent extends Event {
+    @Label("Component")
+    public String component;
+
+    @Label("Image Width")
+    public int imageWidth;
+
+    @Label("Image Height")
+    public int imageHeight;
+
+    @Label("Target Width")
+    @Description("Width of the painted image after zoom or stretch")
+    public int targetWidth;
+
+    @Label("Target Height")
+    @Description("Height of the painted image after zoom or stretch")
+    public int targetHeight;
+
+    @Label("Zoom")
+    public float zoom;
+
+    @Label("Patches")
+    @Description("Number of stretchable rectangles in the image")
+    public int patches;
+}
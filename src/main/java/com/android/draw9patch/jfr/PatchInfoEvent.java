@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Emitted for every parse of the 1px border of an image into a PatchInfo. */
+@Name("com.android.draw9patch.PatchInfo")
+@Label("Patch Info")
+@Category({"Draw 9-patch", "Analysis"})
+@Description("Parse of the 9-patch border markers into patch rectangles")
+@StackTrace(false)
+public class PatchInfoEvent extends Event {
+    @Label("Image Width")
+    public int imageWidth;
+
+    @Label("Image Height")
+    public int imageHeight;
+
+    @Label("Patches")
+    @Description("Areas stretchable in both directions")
+    public int patches;
+
+    @Label("Horizontal Patches")
+    public int horizontalPatches;
+
+    @Label("Vertical Patches")
+    public int verticalPatches;
+
+    @Label("Fixed Regions")
+    public int fixed;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Emitted for every line breaking pass of the preview text. */
+@Name("com.android.draw9patch.TextLayout")
+@Label("Text Layout")
+@Category({"Draw 9-patch", "Rendering"})
+@Description("Line breaking and positioning of the preview text")
+@StackTrace(false)
+public class TextLayoutEvent extends Event {
+    @Label("Text Length")
+    public int textLength;
+
+    @Label("Lines")
+    public int lines;
+
+    @Label("Max Width")
+    public int maxWidth;
+
+    @Label("Max Height")
+    public int maxHeight;
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.Insets;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs the content of many 9-patches, without their border, into a few atlas pages. Each
+ * {@link Sprite} keeps its stretch regions and padding so that the 9-patch can be drawn from
+ * the atlas. Sprites are placed on shelves, tallest first, in the first page with room left.
+ */
+public class AtlasPacker {
+    private final int pageSize;
+    private final int spacing;
+
+    /**
+     * @param pageSize maximum width and height of a page
+     * @param spacing pixels between sprites, filled by extruding the edges of the sprites on
+     *        either side so that bilinear filtering at an edge samples the sprite's own colors.
+     *        A spacing of 1 only covers the right and bottom edges.
+     */
+    public AtlasPacker(int pageSize, int spacing) {
+        this.pageSize = pageSize;
+        this.spacing = spacing;
+    }
+
+    /** Returns true if the sprite is small enough to be packed. */
+    public boolean fits(Sprite sprite) {
+        return sprite.width <= pageSize && sprite.height <= pageSize;
+    }
+
+    /**
+     * Places the sprites and returns the pages, which are cropped to their content.
+     * @throws IllegalArgumentException if a sprite is larger than a page
+     */
+    public List<Page> pack(List<Sprite> sprites) {
+        List<Sprite> sorted = new ArrayList<Sprite>(sprites);
+        Collections.sort(sorted, new Comparator<Sprite>() {
+            @Override
+            public int compare(Sprite s1, Sprite s2) {
+                if (s1.height != s2.height) {
+                    return s2.height - s1.height;
+                }
+                return s2.width - s1.width;
+            }
+        });
+
+        List<Page> pages = new ArrayList<Page>();
+        for (Sprite sprite : sorted) {
+            if (!fits(sprite)) {
+                throw new IllegalArgumentException(sprite.name + " is larger than "
+                        + pageSize + "x" + pageSize);
+            }
+            boolean placed = false;
+            for (Page page : pages) {
+                if (page.place(sprite)) {
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                Page page = new Page(pages.size());
+                page.place(sprite);
+                pages.add(page);
+            }
+        }
+        return pages;
+    }
+
+    /** Content of a 9-patch and its metadata, in the coordinates of the content. */
+    public static class Sprite {
+        public final String name;
+        public final BufferedImage content;
+        public final int width;
+        public final int height;
+        /** Start and end of the horizontally stretchable ranges, end excluded. */
+        public final int[] stretchX;
+        /** Start and end of the vertically stretchable ranges, end excluded. */
+        public final int[] stretchY;
+        public final Insets padding;
+        public final Insets layoutBounds;
+
+        private int page;
+        private int x;
+        private int y;
+
+        public Sprite(String name, BufferedImage ninePatch) {
+            this(name, ninePatch, new PatchInfo(ninePatch));
+        }
+
+        public Sprite(String name, BufferedImage ninePatch, PatchInfo patchInfo) {
+            this.name = name;
+            width = ninePatch.getWidth() - 2;
+            height = ninePatch.getHeight() - 2;
+            content = ninePatch.getSubimage(1, 1, width, height);
+            stretchX = toContent(patchInfo.horizontalPatchMarkers);
+            stretchY = toContent(patchInfo.verticalPatchMarkers);
+            padding = patchInfo.getContentPadding();
+            layoutBounds = patchInfo.layoutBounds;
+        }
+
+        /** Index of the page the sprite was placed on. */
+        public int getPage() {
+            return page;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        private static int[] toContent(List<Pair<Integer>> markers) {
+            int[] ranges = new int[markers.size() * 2];
+            for (int i = 0; i < markers.size(); i++) {
+                ranges[2 * i] = markers.get(i).first - 1;
+                ranges[2 * i + 1] = markers.get(i).second - 1;
+            }
+            return ranges;
+        }
+    }
+
+    /** An atlas page, filled with rows of sprites. */
+    public class Page {
+        public final int index;
+        public final List<Sprite> sprites = new ArrayList<Sprite>();
+        private final List<Shelf> shelves = new ArrayList<Shelf>();
+        private int width;
+        private int height;
+
+        Page(int index) {
+            this.index = index;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /** Draws the sprites of the page, with their edges extruded into the spacing. */
+        public BufferedImage render() {
+            BufferedImage image = new BufferedImage(Math.max(width, 1), Math.max(height, 1),
+                    BufferedImage.TYPE_INT_ARGB);
+            // copies the pixels, drawing the sprites would round translucent colors
+            for (Sprite sprite : sprites) {
+                int[] pixels = GraphicsUtilities.getPixels(sprite.content, 0, 0, sprite.width,
+                        sprite.height, null);
+                image.setRGB(sprite.x, sprite.y, sprite.width, sprite.height, pixels, 0,
+                        sprite.width);
+            }
+
+            int before = spacing / 2;
+            int after = spacing - before;
+            for (Sprite sprite : sprites) {
+                extrude(image, sprite, before, after);
+            }
+            return image;
+        }
+
+        private void extrude(BufferedImage image, Sprite sprite, int before, int after) {
+            int left = Math.max(sprite.x - before, 0);
+            int right = Math.min(sprite.x + sprite.width + after, image.getWidth());
+            int[] column = image.getRGB(sprite.x, sprite.y, 1, sprite.height, null, 0, 1);
+            for (int x = left; x < sprite.x; x++) {
+                image.setRGB(x, sprite.y, 1, sprite.height, column, 0, 1);
+            }
+            image.getRGB(sprite.x + sprite.width - 1, sprite.y, 1, sprite.height, column, 0, 1);
+            for (int x = sprite.x + sprite.width; x < right; x++) {
+                image.setRGB(x, sprite.y, 1, sprite.height, column, 0, 1);
+            }
+
+            // the rows include the extruded columns, which fills the corners
+            int top = Math.max(sprite.y - before, 0);
+            int bottom = Math.min(sprite.y + sprite.height + after, image.getHeight());
+            int[] row = image.getRGB(left, sprite.y, right - left, 1, null, 0, right - left);
+            for (int y = top; y < sprite.y; y++) {
+                image.setRGB(left, y, right - left, 1, row, 0, right - left);
+            }
+            image.getRGB(left, sprite.y + sprite.height - 1, right - left, 1, row, 0,
+                    right - left);
+            for (int y = sprite.y + sprite.height; y < bottom; y++) {
+                image.setRGB(left, y, right - left, 1, row, 0, right - left);
+            }
+        }
+
+        private boolean place(Sprite sprite) {
+            for (Shelf shelf : shelves) {
+                if (sprite.height <= shelf.height && shelf.used + sprite.width <= pageSize) {
+                    add(sprite, shelf);
+                    return true;
+                }
+            }
+
+            int top = 0;
+            if (!shelves.isEmpty()) {
+                Shelf last = shelves.get(shelves.size() - 1);
+                top = last.y + last.height + spacing;
+            }
+            if (top + sprite.height > pageSize) {
+                return false;
+            }
+            Shelf shelf = new Shelf(top, sprite.height);
+            shelves.add(shelf);
+            add(sprite, shelf);
+            return true;
+        }
+
+        private void add(Sprite sprite, Shelf shelf) {
+            sprite.page = index;
+            sprite.x = shelf.used;
+            sprite.y = shelf.y;
+            shelf.used += sprite.width + spacing;
+            sprites.add(sprite);
+            width = Math.max(width, sprite.x + sprite.width);
+            height = Math.max(height, sprite.y + sprite.height);
+        }
+    }
+
+    private static class Shelf {
+        final int y;
+        final int height;
+        int used;
+
+        Shelf(int y, int height) {
+            this.y = y;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Copy of the 1px border of a 9-patch, which holds all the patch, padding and layout bound
+ * markers. Used to undo edits without copying the whole image.
+ */
+class BorderSnapshot {
+    private final int width;
+    private final int height;
+    private final int[] top;
+    private final int[] bottom;
+    private final int[] left;
+    private final int[] right;
+
+    BorderSnapshot(BufferedImage image) {
+        width = image.getWidth();
+        height = image.getHeight();
+        top = GraphicsUtilities.getPixels(image, 0, 0, width, 1, null);
+        bottom = GraphicsUtilities.getPixels(image, 0, height - 1, width, 1, null);
+        left = GraphicsUtilities.getPixels(image, 0, 0, 1, height, null);
+        right = GraphicsUtilities.getPixels(image, width - 1, 0, 1, height, null);
+    }
+
+    /** Writes the saved border back into the image it was taken from. */
+    void restore(BufferedImage image) {
+        image.setRGB(0, 0, width, 1, top, 0, width);
+        image.setRGB(0, height - 1, width, 1, bottom, 0, width);
+        image.setRGB(0, 0, 1, height, left, 0, 1);
+        image.setRGB(width - 1, 0, 1, height, right, 0, 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BorderSnapshot)) {
+            return false;
+        }
+        BorderSnapshot other = (BorderSnapshot) o;
+        return width == other.width && height == other.height
+                && Arrays.equals(top, other.top) && Arrays.equals(bottom, other.bottom)
+                && Arrays.equals(left, other.left) && Arrays.equals(right, other.right);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * width + height;
+        result = 31 * result + Arrays.hashCode(top);
+        result = 31 * result + Arrays.hashCode(left);
+        return result;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A batch of edits of the 1px border of a 9-patch. Edits are buffered and only written to the
+ * image when the transaction is committed with {@link ImageViewer#commit}, which then updates
+ * the patches and notifies the listeners once for the whole batch.
+ */
+public class BorderTransaction {
+    private static final int TOP = 0;
+    private static final int BOTTOM = 1;
+    private static final int LEFT = 2;
+    private static final int RIGHT = 3;
+
+    final BufferedImage image;
+    private final int width;
+    private final int height;
+
+    /** Pixels of each side, read from the image as they are first touched, with the edits. */
+    private final int[][] sides = new int[4][];
+    /** Range of each side read from the image, end excluded. */
+    private final int[] loadedFrom = new int[4];
+    private final int[] loadedTo = new int[4];
+    /** Range of each side changed by the edits, end excluded, empty when nothing changed. */
+    private final int[] dirtyFrom = new int[4];
+    private final int[] dirtyTo = new int[4];
+
+    BorderTransaction(BufferedImage image) {
+        this.image = image;
+        width = image.getWidth();
+        height = image.getHeight();
+    }
+
+    /** Returns the color of a border pixel, including the pending edits. */
+    public int get(int x, int y) {
+        if (y == 0) {
+            return side(TOP, x)[x];
+        } else if (y == height - 1) {
+            return side(BOTTOM, x)[x];
+        } else if (x == 0) {
+            return side(LEFT, y)[y];
+        } else if (x == width - 1) {
+            return side(RIGHT, y)[y];
+        }
+        throw new IllegalArgumentException("Not a border pixel: " + x + "," + y);
+    }
+
+    /** Sets the color of a border pixel. */
+    public void set(int x, int y, int color) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Outside of the image: " + x + "," + y);
+        }
+
+        // corners belong to two sides, which are kept in sync
+        boolean border = false;
+        if (y == 0) {
+            setSide(TOP, x, color);
+            border = true;
+        }
+        if (y == height - 1) {
+            setSide(BOTTOM, x, color);
+            border = true;
+        }
+        if (x == 0) {
+            setSide(LEFT, y, color);
+            border = true;
+        }
+        if (x == width - 1) {
+            setSide(RIGHT, y, color);
+            border = true;
+        }
+        if (!border) {
+            throw new IllegalArgumentException("Not a border pixel: " + x + "," + y);
+        }
+    }
+
+    /** Sets the color of the border pixels on a horizontal or vertical line, ends included. */
+    public void fill(int x1, int y1, int x2, int y2, int color) {
+        if (x1 != x2 && y1 != y2) {
+            throw new IllegalArgumentException("Not a horizontal or vertical line");
+        }
+
+        // read the span of the line at once rather than pixel by pixel
+        if (y1 == y2 && (y1 == 0 || y1 == height - 1) && x1 >= 0 && x2 >= 0
+                && x1 < width && x2 < width) {
+            load(y1 == 0 ? TOP : BOTTOM, Math.min(x1, x2), Math.max(x1, x2) + 1);
+        } else if (x1 == x2 && (x1 == 0 || x1 == width - 1) && y1 >= 0 && y2 >= 0
+                && y1 < height && y2 < height) {
+            load(x1 == 0 ? LEFT : RIGHT, Math.min(y1, y2), Math.max(y1, y2) + 1);
+        }
+        for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+            for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                set(x, y, color);
+            }
+        }
+    }
+
+    /** Returns true if some pixels were changed. */
+    public boolean hasChanges() {
+        for (int side = TOP; side <= RIGHT; side++) {
+            if (dirtyFrom[side] < dirtyTo[side]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the pending edits to the image, one call per modified side covering only the
+     * changed span, and returns true if the image changed.
+     */
+    boolean apply() {
+        boolean changed = hasChanges();
+        for (int side = TOP; side <= RIGHT; side++) {
+            int from = dirtyFrom[side];
+            int length = dirtyTo[side] - from;
+            if (length > 0) {
+                switch (side) {
+                    case TOP:
+                        image.setRGB(from, 0, length, 1, sides[side], from, length);
+                        break;
+                    case BOTTOM:
+                        image.setRGB(from, height - 1, length, 1, sides[side], from, length);
+                        break;
+                    case LEFT:
+                        image.setRGB(0, from, 1, length, sides[side], from, 1);
+                        break;
+                    default:
+                        image.setRGB(width - 1, from, 1, length, sides[side], from, 1);
+                        break;
+                }
+            }
+            sides[side] = null;
+            dirtyFrom[side] = 0;
+            dirtyTo[side] = 0;
+        }
+        return changed;
+    }
+
+    private void setSide(int side, int index, int color) {
+        int[] pixels = side(side, index);
+        if (pixels[index] != color) {
+            pixels[index] = color;
+            if (dirtyFrom[side] >= dirtyTo[side]) {
+                dirtyFrom[side] = index;
+                dirtyTo[side] = index + 1;
+            } else {
+                dirtyFrom[side] = Math.min(dirtyFrom[side], index);
+                dirtyTo[side] = Math.max(dirtyTo[side], index + 1);
+            }
+        }
+    }
+
+    /** Returns the pixels of a side, with at least the given index read from the image. */
+    private int[] side(int side, int index) {
+        load(side, index, index + 1);
+        return sides[side];
+    }
+
+    /** Reads the range of the side from the image, extending the range read so far. */
+    private void load(int side, int from, int to) {
+        if (sides[side] == null) {
+            sides[side] = new int[side == TOP || side == BOTTOM ? width : height];
+            read(side, from, to);
+            loadedFrom[side] = from;
+            loadedTo[side] = to;
+            return;
+        }
+        if (from < loadedFrom[side]) {
+            read(side, from, loadedFrom[side]);
+            loadedFrom[side] = from;
+        }
+        if (to > loadedTo[side]) {
+            read(side, loadedTo[side], to);
+            loadedTo[side] = to;
+        }
+    }
+
+    private void read(int side, int from, int to) {
+        int length = to - from;
+        int[] pixels;
+        switch (side) {
+            case TOP:
+                pixels = GraphicsUtilities.getPixels(image, from, 0, length, 1, null);
+                break;
+            case BOTTOM:
+                pixels = GraphicsUtilities.getPixels(image, from, height - 1, length, 1, null);
+                break;
+            case LEFT:
+                pixels = GraphicsUtilities.getPixels(image, 0, from, 1, length, null);
+                break;
+            default:
+                pixels = GraphicsUtilities.getPixels(image, width - 1, from, 1, length, null);
+                break;
+        }
+        System.arraycopy(pixels, 0, sides[side], from, length);
+    }
+}
@@ -17,15 +17,20 @@
 package com.android.draw9patch.ui;
 
 import com.android.draw9patch.graphics.GraphicsUtilities;
+import com.android.draw9patch.jfr.BadPatchesEvent;
 
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class CorruptPatch {
+    private static final PixelKernels KERNELS = PixelKernels.get();
+
     public static List<Rectangle> findBadPatches(BufferedImage image, PatchInfo patchInfo) {
+        BadPatchesEvent event = new BadPatchesEvent();
+        event.begin();
+
         List<Rectangle> corruptedPatches = new ArrayList<Rectangle>();
 
         for (Rectangle patch : patchInfo.patches) {
@@ -46,6 +51,16 @@ public class CorruptPatch {
             }
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.imageWidth = image.getWidth();
+            event.imageHeight = image.getHeight();
+            event.checkedPatches = patchInfo.patches.size() + patchInfo.horizontalPatches.size()
+                    + patchInfo.verticalPatches.size();
+            event.badPatches = corruptedPatches.size();
+            event.commit();
+        }
+
         return corruptedPatches;
     }
 
@@ -53,28 +68,17 @@ public class CorruptPatch {
         int[] pixels = GraphicsUtilities.getPixels(image, patch.x, patch.y,
                 patch.width, patch.height, null);
 
-        if (pixels.length > 0) {
-            int reference = pixels[0];
-            for (int pixel : pixels) {
-                if (pixel != reference) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return pixels.length > 0 && KERNELS.runEnd(pixels, 0, pixels.length) != pixels.length;
     }
 
+    /** All the columns are the same if each row is a single color. */
     private static boolean corruptHorizontalPatch(BufferedImage image, Rectangle patch) {
-        int[] reference = new int[patch.height];
-        int[] column = new int[patch.height];
-        reference = GraphicsUtilities.getPixels(image, patch.x, patch.y,
-                1, patch.height, reference);
-
-        for (int i = 1; i < patch.width; i++) {
-            column = GraphicsUtilities.getPixels(image, patch.x + i, patch.y,
-                    1, patch.height, column);
-            if (!Arrays.equals(reference, column)) {
+        int[] pixels = GraphicsUtilities.getPixels(image, patch.x, patch.y,
+                patch.width, patch.height, null);
+
+        for (int offset = 0; offset < pixels.length; offset += patch.width) {
+            int end = offset + patch.width;
+            if (KERNELS.runEnd(pixels, offset, end) != end) {
                 return true;
             }
         }
@@ -83,14 +87,11 @@ public class CorruptPatch {
     }
 
     private static boolean corruptVerticalPatch(BufferedImage image, Rectangle patch) {
-        int[] reference = new int[patch.width];
-        int[] row = new int[patch.width];
-        reference = GraphicsUtilities.getPixels(image, patch.x, patch.y,
-                patch.width, 1, reference);
-
-        for (int i = 1; i < patch.height; i++) {
-            row = GraphicsUtilities.getPixels(image, patch.x, patch.y + i, patch.width, 1, row);
-            if (!Arrays.equals(reference, row)) {
+        int[] pixels = GraphicsUtilities.getPixels(image, patch.x, patch.y,
+                patch.width, patch.height, null);
+
+        for (int offset = patch.width; offset < pixels.length; offset += patch.width) {
+            if (!KERNELS.equals(pixels, 0, pixels, offset, patch.width)) {
                 return true;
             }
         }
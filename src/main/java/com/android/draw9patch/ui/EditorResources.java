@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * Resources shared by every {@link ImageEditorPanel}. They are loaded once, either on first
+ * use or ahead of time from a background thread at startup. Each resource has its own lock so
+ * that they can be loaded concurrently.
+ */
+public class EditorResources {
+    private static final Object CHECKER_LOCK = new Object();
+    private static final Object FONTS_LOCK = new Object();
+
+    private static BufferedImage checker;
+    private static Font[] fonts;
+
+    /** Returns the checkerboard tile painted behind transparent pixels. */
+    public static BufferedImage getChecker() throws IOException {
+        synchronized (CHECKER_LOCK) {
+            if (checker == null) {
+                URL resource = EditorResources.class.getResource("/images/checker.png");
+                checker = GraphicsUtilities.loadCompatibleImage(resource);
+            }
+            return checker;
+        }
+    }
+
+    /**
+     * Returns the fonts offered for the preview text: Droid Sans and Droid Sans Bold first,
+     * followed by all the fonts installed on the system.
+     */
+    public static Font[] getFonts() {
+        synchronized (FONTS_LOCK) {
+            if (fonts == null) {
+                Font[] sysFonts = GraphicsEnvironment.getLocalGraphicsEnvironment().getAllFonts();
+                Font[] all = new Font[sysFonts.length + 2];
+                System.arraycopy(sysFonts, 0, all, 2, sysFonts.length);
+                try {
+                    all[0] = loadFont("/fonts/DroidSans.ttf");
+                    all[1] = loadFont("/fonts/DroidSans-Bold.ttf");
+                } catch (Exception e) {
+                    throw new IllegalStateException("unable to load droid fonts");
+                }
+                fonts = all;
+            }
+            return fonts.clone();
+        }
+    }
+
+    private static Font loadFont(String path) throws Exception {
+        InputStream stream = EditorResources.class.getResource(path).openStream();
+        try {
+            return Font.createFont(Font.TRUETYPE_FONT, stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -22,10 +22,9 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
+import java.text.DecimalFormat;
 
 import javax.swing.*;
 import javax.swing.event.*;
@@ -45,6 +44,7 @@ public class ImageEditorPanel extends JPanel {
 
     private TexturePaint texture;
     private JSlider zoomSlider;
+    private Navigator navigator;
     //JtS
     private boolean mWheelToZoom = true;
 
@@ -91,7 +91,7 @@ public class ImageEditorPanel extends JPanel {
     }
 
     private void synchronizeImageViewerZoomLevel() {
-        zoomSlider.setValue(viewer.getZoom());
+        zoomSlider.setValue(ImageViewer.getZoomLevel(viewer.getZoom()));
     }
 
     public ImageViewer getViewer() {
@@ -100,8 +100,7 @@ public class ImageEditorPanel extends JPanel {
 
     private void loadSupport() {
         try {
-            URL resource = getClass().getResource("/images/checker.png");
-            BufferedImage checker = GraphicsUtilities.loadCompatibleImage(resource);
+            BufferedImage checker = EditorResources.getChecker();
             texture = new TexturePaint(checker, new Rectangle2D.Double(0, 0,
                     checker.getWidth(), checker.getHeight()));
         } catch (IOException e) {
@@ -129,6 +128,7 @@ public class ImageEditorPanel extends JPanel {
         scroller.setBorder(null);
         scroller.getViewport().setBorder(null);
         scroller.getViewport().setOpaque(false);
+        navigator = new Navigator(viewer, scroller.getViewport(), texture);
 
         //JtS
         if (mWheelToZoom) {
@@ -158,6 +158,10 @@ public class ImageEditorPanel extends JPanel {
         return scroller;
     }
 
+    private static String formatZoom(float zoom) {
+        return new DecimalFormat("#.#").format(zoom * 100) + "%";
+    }
+
     private void buildStatusPanel() {
         JPanel status = new JPanel(new GridBagLayout());
 
@@ -169,21 +173,22 @@ public class ImageEditorPanel extends JPanel {
                 new Insets(0, 6, 0, 0), 0, 0));
 
         label = new JLabel();
-        label.setText("100%");
+        label.setText(formatZoom(ImageViewer.MIN_ZOOM));
         label.putClientProperty("JComponent.sizeVariant", "small");
         status.add(label, new GridBagConstraints(1, 0, 1, 1, 0.0f, 0.0f,
                 GridBagConstraints.LINE_END, GridBagConstraints.NONE,
                 new Insets(0, 0, 0, 0), 0, 0));
 
-        zoomSlider = new JSlider(ImageViewer.MIN_ZOOM, ImageViewer.MAX_ZOOM,
-                ImageViewer.DEFAULT_ZOOM);
+        // the slider steps through the zoom levels rather than the zoom values
+        zoomSlider = new JSlider(0, ImageViewer.ZOOM_LEVELS.length - 1,
+                ImageViewer.getZoomLevel(ImageViewer.DEFAULT_ZOOM));
         zoomSlider.setMinimumSize(new Dimension(100, (int) zoomSlider.getMinimumSize().getHeight()));
         zoomSlider.setSnapToTicks(true);
         zoomSlider.putClientProperty("JComponent.sizeVariant", "small");
         zoomSlider.addChangeListener(new ChangeListener() {
             @Override
             public void stateChanged(ChangeEvent evt) {
-                viewer.setZoom(((JSlider) evt.getSource()).getValue());
+                viewer.setZoom(ImageViewer.ZOOM_LEVELS[((JSlider) evt.getSource()).getValue()]);
             }
         });
         status.add(zoomSlider, new GridBagConstraints(2, 0, 1, 1, 0.0f, 0.0f,
@@ -192,7 +197,7 @@ public class ImageEditorPanel extends JPanel {
 
         JLabel maxZoomLabel = new JLabel();
         maxZoomLabel.putClientProperty("JComponent.sizeVariant", "small");
-        maxZoomLabel.setText("800%");
+        maxZoomLabel.setText(formatZoom(ImageViewer.MAX_ZOOM));
         status.add(maxZoomLabel, new GridBagConstraints(3, 0, 1, 1, 0.0f, 0.0f,
                 GridBagConstraints.LINE_START, GridBagConstraints.NONE,
                 new Insets(0, 0, 0, 0), 0, 0));
@@ -274,6 +279,32 @@ public class ImageEditorPanel extends JPanel {
                 GridBagConstraints.LINE_END, GridBagConstraints.NONE,
                 new Insets(0, 0, 0, 0), 0, 0));
 
+        JCheckBox showGrid = new JCheckBox("Show grid");
+        showGrid.setOpaque(false);
+        showGrid.putClientProperty("JComponent.sizeVariant", "small");
+        showGrid.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                viewer.setGridVisible(((JCheckBox) event.getSource()).isSelected());
+            }
+        });
+        status.add(showGrid, new GridBagConstraints(5, 1, 1, 1, 0.0f, 0.0f,
+                GridBagConstraints.LINE_START, GridBagConstraints.NONE,
+                new Insets(0, 0, 0, 0), 0, 0));
+
+        JCheckBox showUniformity = new JCheckBox("Show uniformity");
+        showUniformity.setOpaque(false);
+        showUniformity.putClientProperty("JComponent.sizeVariant", "small");
+        showUniformity.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                viewer.setUniformityVisible(((JCheckBox) event.getSource()).isSelected());
+            }
+        });
+        status.add(showUniformity, new GridBagConstraints(6, 0, 1, 1, 0.0f, 0.0f,
+                GridBagConstraints.LINE_START, GridBagConstraints.NONE,
+                new Insets(0, 0, 0, 0), 0, 0));
+
 
         JCheckBox showText = new JCheckBox("Show text");
         showText.setOpaque(false);
@@ -312,16 +343,8 @@ public class ImageEditorPanel extends JPanel {
                 new Insets(0, 2, 0, 0), 0, 0));
 
 
-        Font[] sysFonts = GraphicsEnvironment.getLocalGraphicsEnvironment().getAllFonts();
-        final Font[] fonts = new Font[sysFonts.length + 2];
-        System.arraycopy(sysFonts, 0, fonts, 2, sysFonts.length);
-        try {
-            fonts[0] = Font.createFont(Font.TRUETYPE_FONT, getClass().getResource("/fonts/DroidSans.ttf").openStream());
-            fonts[1] = Font.createFont(Font.TRUETYPE_FONT, getClass().getResource("/fonts/DroidSans-Bold.ttf").openStream());
-            stretchesViewer.setFont(new Font(fonts[0].getName(), Font.PLAIN, stretchesViewer.getFontSize()));
-        } catch (Exception e) {
-            throw new IllegalStateException("unable to load droid fonts");
-        }
+        final Font[] fonts = EditorResources.getFonts();
+        stretchesViewer.setFont(new Font(fonts[0].getName(), Font.PLAIN, stretchesViewer.getFontSize()));
 
         final JComboBox fontsComboBox = new JComboBox(new DefaultComboBoxModel(fonts));
         fontsComboBox.setSelectedIndex(0);
@@ -400,6 +423,10 @@ public class ImageEditorPanel extends JPanel {
 
 
 
+        status.add(navigator, new GridBagConstraints(8, 0, 1, 3, 0.0f, 0.0f,
+                GridBagConstraints.CENTER, GridBagConstraints.NONE,
+                new Insets(2, 12, 2, 0), 0, 0));
+
         status.add(Box.createHorizontalGlue(), new GridBagConstraints(10, 0, 1, 1, 1.0f, 1.0f,
                 GridBagConstraints.LINE_START, GridBagConstraints.BOTH,
                 new Insets(0, 0, 0, 0), 0, 0));
@@ -456,7 +483,26 @@ public class ImageEditorPanel extends JPanel {
         }
     }
 
-    private static BufferedImage convertTo9Patch(BufferedImage image) {
+    /** Returns a copy of the image with an empty 1px 9-patch border around it. */
+    public static BufferedImage convertTo9Patch(BufferedImage image) {
+        BufferedImage indexed = GraphicsUtilities.createIndexedImage(image,
+                image.getWidth() + 2, image.getHeight() + 2);
+        if (indexed != null) {
+            // same palette indices, the border is then cleared to the transparent marker color
+            indexed.getRaster().setRect(1, 1, image.getRaster());
+            int width = indexed.getWidth();
+            int height = indexed.getHeight();
+            for (int x = 0; x < width; x++) {
+                indexed.setRGB(x, 0, 0);
+                indexed.setRGB(x, height - 1, 0);
+            }
+            for (int y = 0; y < height; y++) {
+                indexed.setRGB(0, y, 0);
+                indexed.setRGB(width - 1, y, 0);
+            }
+            return indexed;
+        }
+
         BufferedImage buffer = GraphicsUtilities.createTranslucentCompatibleImage(
                 image.getWidth() + 2, image.getHeight() + 2);
 
@@ -495,8 +541,8 @@ public class ImageEditorPanel extends JPanel {
         return null;
     }
 
-    RenderedImage getImage() {
-        return image;
+    String getPath() {
+        return name;
     }
 
     public void dispose() {
@@ -18,13 +18,17 @@ package com.android.draw9patch.ui;
 
 import javax.swing.TransferHandler;
 import javax.swing.JComponent;
+import javax.swing.SwingWorker;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 
 class ImageTransferHandler extends TransferHandler {
     private final MainFrame mainFrame;
@@ -40,17 +44,13 @@ class ImageTransferHandler extends TransferHandler {
                 if (flavor.isFlavorJavaFileListType()) {
                     Object data = transferable.getTransferData(DataFlavor.javaFileListFlavor);
                     //noinspection unchecked
-                    final File file = ((List<File>) data).get(0);
-                    mainFrame.open(file).execute();
-                    return true;
+                    return open((List<File>) data);
                 } else if (flavor.isFlavorTextType()) {
                     if (flavor.getRepresentationClass() == String.class) {
                         String mime = flavor.getMimeType();
                         DataFlavor flave = new DataFlavor(mime);
                         Object data = transferable.getTransferData(flave);
-                        final String path = convertPath(data.toString());
-                        mainFrame.open(new File(path)).execute();
-                        return true;
+                        return open(convertPaths(data.toString()));
                     }
                 }
             }
@@ -67,11 +67,46 @@ class ImageTransferHandler extends TransferHandler {
         return false;
     }
 
-    private static String convertPath(String path) {
-        if (path.startsWith("file://")) path = path.substring("file://".length());
-        if (path.indexOf('\n') != -1) path = path.substring(0, path.indexOf('\n'));
-        if (path.indexOf('\r') != -1) path = path.substring(0, path.indexOf('\r'));
-        return path;
+    private boolean open(List<File> files) {
+        SwingWorker<?, ?> worker = mainFrame.openAll(files);
+        if (worker == null) {
+            return false;
+        }
+        worker.execute();
+        return true;
+    }
+
+    /** Converts dropped text, typically a uri-list with one path per line, to files. */
+    private static List<File> convertPaths(String text) {
+        List<File> files = new ArrayList<File>();
+        for (String path : text.split("[\r\n]+")) {
+            path = path.trim();
+            // uri-lists may contain comments
+            if (path.length() == 0 || path.startsWith("#")) {
+                continue;
+            }
+            files.add(path.startsWith("file:") ? toFile(path) : new File(path));
+        }
+        return files;
+    }
+
+    /**
+     * Converts a file URI, decoding escapes such as %20. Some file managers leave spaces
+     * unescaped, the scheme is then stripped from the malformed URI.
+     */
+    private static File toFile(String line) {
+        URI uri;
+        try {
+            uri = new URI(line);
+        } catch (URISyntaxException e) {
+            return new File(line.replaceFirst("^file:(//)?", ""));
+        }
+        try {
+            return new File(uri);
+        } catch (IllegalArgumentException e) {
+            // file://localhost/path has an authority, which File refuses
+            return new File(uri.getPath());
+        }
     }
 
     @Override
@@ -18,6 +18,8 @@
 
 package com.android.draw9patch.ui;
 
+import com.android.draw9patch.jfr.PaintEvent;
+
 import java.awt.AWTEvent;
 import java.awt.BasicStroke;
 import java.awt.BorderLayout;
@@ -25,6 +27,7 @@ import java.awt.Color;
 import java.awt.Container;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
@@ -50,18 +53,24 @@ import java.awt.geom.Line2D;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.AncestorEvent;
 import javax.swing.event.AncestorListener;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoManager;
 
 public class ImageViewer extends JComponent {
     private final Color CORRUPTED_COLOR = new Color(1.0f, 0.0f, 0.0f, 0.7f);
@@ -81,22 +90,85 @@ public class ImageViewer extends JComponent {
     private static final float IDEAL_IMAGE_FRACTION_OF_WINDOW = 0.7f;
 
     /** Default zoom level for the 9patch image. */
-    public static final int DEFAULT_ZOOM = 8;
+    public static final float DEFAULT_ZOOM = 8;
 
     /** Minimum zoom level for the 9patch image. */
-    public static final int MIN_ZOOM = 1;
+    public static final float MIN_ZOOM = 0.125f;
 
     /** Maximum zoom level for the 9patch image. */
-    public static final int MAX_ZOOM = 16;
+    public static final float MAX_ZOOM = 16;
+
+    /** Zoom levels offered by the zoom slider, fractional below 100%. */
+    public static final float[] ZOOM_LEVELS = {
+            MIN_ZOOM, 0.25f, 0.5f, 0.75f,
+            1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, MAX_ZOOM
+    };
 
     private final AWTEventListener mAwtKeyEventListener;
 
     /** Current 9patch zoom level, {@link #MIN_ZOOM} <= zoom <= {@link #MAX_ZOOM} */
-    private int zoom = DEFAULT_ZOOM;
+    private float zoom = DEFAULT_ZOOM;
     private boolean showPatches;
     private boolean showLock = false;
 
     private final TexturePaint texture;
+    private final PixelMagnifier magnifier;
+    private MipmapPyramid pyramid;
+    private final PixelGrid grid = new PixelGrid();
+
+    private final OverlayLayer patchesLayer = new OverlayLayer(new OverlayLayer.Painter() {
+        @Override
+        public void paint(Graphics2D g) {
+            g.setColor(PATCH_COLOR);
+            for (Rectangle patch : patchInfo.patches) {
+                g.fillRect(patch.x, patch.y, patch.width, patch.height);
+            }
+            g.setColor(PATCH_ONEWAY_COLOR);
+            for (Rectangle patch : patchInfo.horizontalPatches) {
+                g.fillRect(patch.x, patch.y, patch.width, patch.height);
+            }
+            for (Rectangle patch : patchInfo.verticalPatches) {
+                g.fillRect(patch.x, patch.y, patch.width, patch.height);
+            }
+        }
+    });
+
+    private final OverlayLayer corruptedPatchesLayer = new OverlayLayer(
+            new OverlayLayer.Painter() {
+        @Override
+        public void paint(Graphics2D g) {
+            g.setColor(CORRUPTED_COLOR);
+            g.setStroke(new BasicStroke(3.0f / zoom));
+            for (Rectangle patch : corruptedPatches) {
+                g.draw(new RoundRectangle2D.Float(patch.x - 2.0f / zoom, patch.y - 2.0f / zoom,
+                        patch.width + 2.0f / zoom, patch.height + 2.0f / zoom,
+                        6.0f / zoom, 6.0f / zoom));
+            }
+        }
+    });
+
+    private final OverlayLayer lockLayer = new OverlayLayer(new OverlayLayer.Painter() {
+        @Override
+        public void paint(Graphics2D g) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+
+            g.setColor(LOCK_COLOR);
+            g.fillRect(1, 1, width - 2, height - 2);
+
+            g.setColor(STRIPES_COLOR);
+            g.translate(1, 1);
+            paintStripes(g, width - 2, height - 2);
+            g.translate(-1, -1);
+        }
+    });
+    private boolean showGrid;
+
+    private boolean showUniformity;
+    /** Computed in the background, at most once per content version. */
+    private UniformityHeatmap heatmap;
+    private SwingWorker<UniformityHeatmap, Void> heatmapTask;
+    private int heatmapTaskVersion;
     private final Container container;
     private final StatusBar statusBar;
 
@@ -111,6 +183,8 @@ public class ImageViewer extends JComponent {
     private JLabel helpLabel;
     private boolean eraseMode;
 
+    private JButton suggestButton;
+    private JButton repairButton;
     private JButton checkButton;
     private List<Rectangle> corruptedPatches;
     private boolean showBadPatches;
@@ -150,6 +224,12 @@ public class ImageViewer extends JComponent {
 
     private BufferedImage image;
     private PatchInfo patchInfo;
+    private NinePatchDocument document;
+
+    private final UndoManager undoManager = new UndoManager();
+
+    /** Border of the image when the current mouse stroke started. */
+    private BorderSnapshot strokeSnapshot;
 
     /** The types of edit actions that can be performed on the image. */
     private enum DrawMode {
@@ -168,6 +248,7 @@ public class ImageViewer extends JComponent {
                 StatusBar statusBar) {
         this.container = container;
         this.texture = texture;
+        this.magnifier = new PixelMagnifier(texture != null ? texture.getImage() : null);
         this.image = image;
         this.statusBar = statusBar;
 
@@ -185,10 +266,23 @@ public class ImageViewer extends JComponent {
         helpLabel.setOpaque(true);
         helpLabel.setBackground(HELP_COLOR);
         helpPanel.add(helpLabel, BorderLayout.WEST);
+        suggestButton = new JButton("Suggest patches");
+        suggestButton.putClientProperty("JComponent.sizeVariant", "small");
+        suggestButton.putClientProperty("JButton.buttonType", "roundRect");
+        suggestButton.setToolTipText("Mark the largest uniform column and row as stretchable");
         checkButton = new JButton("Show bad patches");
         checkButton.putClientProperty("JComponent.sizeVariant", "small");
         checkButton.putClientProperty("JButton.buttonType", "roundRect");
-        helpPanel.add(checkButton, BorderLayout.EAST);
+        repairButton = new JButton("Repair bad patches");
+        repairButton.putClientProperty("JComponent.sizeVariant", "small");
+        repairButton.putClientProperty("JButton.buttonType", "roundRect");
+        repairButton.setToolTipText("Shrink the patches that are not uniform");
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 0));
+        buttons.setOpaque(false);
+        buttons.add(suggestButton);
+        buttons.add(repairButton);
+        buttons.add(checkButton);
+        helpPanel.add(buttons, BorderLayout.EAST);
 
         add(helpPanel, new GridBagConstraints(0, 0, 1, 1,
                 1.0f, 1.0f, GridBagConstraints.FIRST_LINE_START, GridBagConstraints.HORIZONTAL,
@@ -224,6 +318,7 @@ public class ImageViewer extends JComponent {
                 // event returns 0, which appears to be technically correct (no button
                 // changed state).
                 updateDrawMode(event);
+                strokeSnapshot = new BorderSnapshot(image);
 
                 int x = imageXCoordinate(event.getX());
                 int y = imageYCoordinate(event.getY());
@@ -247,6 +342,11 @@ public class ImageViewer extends JComponent {
                 endDrawingLine();
                 endEditingRegion(x, y);
 
+                if (strokeSnapshot != null) {
+                    addBorderEdit("Draw", strokeSnapshot);
+                    strokeSnapshot = null;
+                }
+
                 resetDrawMode();
             }
         });
@@ -294,6 +394,23 @@ public class ImageViewer extends JComponent {
         Toolkit.getDefaultToolkit()
                 .addAWTEventListener(mAwtKeyEventListener, AWTEvent.KEY_EVENT_MASK);
 
+        suggestButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                BorderTransaction edit = beginEdit();
+                StretchInference.apply(edit, StretchInference.infer(ImageViewer.this.image));
+                commit("Suggest Patches", edit);
+            }
+        });
+
+        repairButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent event) {
+                BorderTransaction edit = beginEdit();
+                PatchRepair.apply(edit, PatchRepair.findRepairs(ImageViewer.this.image,
+                        patchInfo));
+                commit("Repair Patches", edit);
+            }
+        });
+
         checkButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent event) {
                 if (!showBadPatches) {
@@ -742,12 +859,12 @@ public class ImageViewer extends JComponent {
 
     private int imageYCoordinate(int y) {
         int top = helpPanel.getHeight() + (getHeight() - size.height) / 2;
-        return (y - top) / zoom;
+        return (int) ((y - top) / zoom);
     }
 
     private int imageXCoordinate(int x) {
         int left = (getWidth() - size.width) / 2;
-        return (x - left) / zoom;
+        return (int) ((x - left) / zoom);
     }
 
     private Point getImageOrigin() {
@@ -756,19 +873,31 @@ public class ImageViewer extends JComponent {
         return new Point(left, top);
     }
 
+    /** Returns the area covered by the zoomed image, in the coordinates of this component. */
+    Rectangle getImageBounds() {
+        Point imageOrigin = getImageOrigin();
+        return new Rectangle(imageOrigin.x, imageOrigin.y,
+                Math.round(image.getWidth() * zoom), Math.round(image.getHeight() * zoom));
+    }
+
     private Rectangle displayCoordinates(Rectangle r) {
         Point imageOrigin = getImageOrigin();
 
-        int x = r.x * zoom + imageOrigin.x;
-        int y = r.y * zoom + imageOrigin.y;
-        int w = r.width * zoom;
-        int h = r.height * zoom;
+        int x = Math.round(r.x * zoom) + imageOrigin.x;
+        int y = Math.round(r.y * zoom) + imageOrigin.y;
+        int w = Math.round(r.width * zoom);
+        int h = Math.round(r.height * zoom);
 
         return new Rectangle(x, y, w, h);
     }
 
     private void updatePatchInfo() {
         patchInfo = new PatchInfo(image);
+        if (document == null) {
+            document = new NinePatchDocument(image, patchInfo);
+        } else {
+            document.publish(image, patchInfo);
+        }
     }
 
     private void enableEraseMode(KeyEvent event) {
@@ -862,27 +991,21 @@ public class ImageViewer extends JComponent {
      *                  will be set to the given color as well.
      */
     private void setPatchData(int color, int x1, int y1, int x2, int y2, boolean inclusive) {
-        int x = x1;
-        int y = y1;
-
-        int dx = 0;
-        int dy = 0;
-
-        if (x2 != x1) {
-            dx = x2 > x1 ? 1 : -1;
-        } else if (y2 != y1) {
-            dy = y2 > y1 ? 1 : -1;
-        }
-
-        while (x != x2 || y != y2) {
-            image.setRGB(x, y, color);
-            x += dx;
-            y += dy;
+        if (!inclusive) {
+            if (x1 == x2 && y1 == y2) {
+                return;
+            }
+            // stop one pixel short of the end
+            if (x2 != x1) {
+                x2 += x2 > x1 ? -1 : 1;
+            } else {
+                y2 += y2 > y1 ? -1 : 1;
+            }
         }
 
-        if (inclusive) {
-            image.setRGB(x, y, color);
-        }
+        BorderTransaction edit = new BorderTransaction(image);
+        edit.fill(x1, y1, x2, y2, color);
+        edit.apply();
     }
 
     /** Flushes current edit data to the image. */
@@ -920,6 +1043,9 @@ public class ImageViewer extends JComponent {
     }
 
     private void patchesChanged() {
+        if (pyramid != null) {
+            invalidateBorder(pyramid);
+        }
         updatePatchInfo();
         notifyPatchesUpdated();
         if (showBadPatches) {
@@ -927,6 +1053,16 @@ public class ImageViewer extends JComponent {
         }
     }
 
+    /** Edits only touch the border, so only the tiles along the four sides are rebuilt. */
+    private void invalidateBorder(MipmapPyramid pyramid) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        pyramid.invalidate(new Rectangle(0, 0, width, 1));
+        pyramid.invalidate(new Rectangle(0, height - 1, width, 1));
+        pyramid.invalidate(new Rectangle(0, 0, 1, height));
+        pyramid.invalidate(new Rectangle(width - 1, 0, 1, height));
+    }
+
     private boolean checkLockedRegion(int x, int y) {
         int oldX = lastPositionX;
         int oldY = lastPositionY;
@@ -951,10 +1087,11 @@ public class ImageViewer extends JComponent {
         if (locked != previousLock) {
             repaint();
         } else if (showCursor || (showCursor != previousCursor)) {
-            Rectangle clip = new Rectangle(lastPositionX - 1 - zoom / 2,
-                    lastPositionY - 1 - zoom / 2, zoom + 2, zoom + 2);
-            clip = clip.union(new Rectangle(oldX - 1 - zoom / 2,
-                    oldY - 1 - zoom / 2, zoom + 2, zoom + 2));
+            int pixel = getPixelSize();
+            Rectangle clip = new Rectangle(lastPositionX - 1 - pixel / 2,
+                    lastPositionY - 1 - pixel / 2, pixel + 2, pixel + 2);
+            clip = clip.union(new Rectangle(oldX - 1 - pixel / 2,
+                    oldY - 1 - pixel / 2, pixel + 2, pixel + 2));
             repaint(clip);
         }
 
@@ -963,6 +1100,9 @@ public class ImageViewer extends JComponent {
 
     @Override
     protected void paintComponent(Graphics g) {
+        PaintEvent event = new PaintEvent();
+        event.begin();
+
         int x = (getWidth() - size.width) / 2;
         int y = helpPanel.getHeight() + (getHeight() - size.height) / 2;
 
@@ -971,50 +1111,53 @@ public class ImageViewer extends JComponent {
         g2.fillRect(0, 0, getWidth(), getHeight());
 
         g2.translate(x, y);
-        g2.setPaint(texture);
-        g2.fillRect(0, 0, size.width, size.height);
-        g2.scale(zoom, zoom);
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        g2.drawImage(image, 0, 0, null);
 
-        if (showPatches) {
-            g2.setColor(PATCH_COLOR);
-            for (Rectangle patch : patchInfo.patches) {
-                g2.fillRect(patch.x, patch.y, patch.width, patch.height);
-            }
-            g2.setColor(PATCH_ONEWAY_COLOR);
-            for (Rectangle patch : patchInfo.horizontalPatches) {
-                g2.fillRect(patch.x, patch.y, patch.width, patch.height);
+        int imageWidth = Math.round(image.getWidth() * zoom);
+        int imageHeight = Math.round(image.getHeight() * zoom);
+        Rectangle visible = new Rectangle(0, 0, imageWidth, imageHeight);
+        Rectangle clip = g2.getClipBounds();
+        if (clip != null) {
+            visible = visible.intersection(clip);
+        }
+        if (!visible.isEmpty()) {
+            if (zoom == (int) zoom) {
+                // only the visible pixels are magnified, over the checkerboard, in software
+                BufferedImage magnified = magnifier.magnify(image, (int) zoom, visible);
+                g2.drawImage(magnified, visible.x, visible.y,
+                        visible.x + visible.width, visible.y + visible.height,
+                        0, 0, visible.width, visible.height, null);
+            } else {
+                paintScaled(g2, visible);
             }
-            for (Rectangle patch : patchInfo.verticalPatches) {
-                g2.fillRect(patch.x, patch.y, patch.width, patch.height);
+            if (showGrid && PixelGrid.isVisibleAt(zoom)) {
+                grid.paint(g2, (int) zoom, visible);
             }
         }
+        if (size.height > imageHeight && texture != null) {
+            g2.setPaint(texture);
+            g2.fillRect(0, imageHeight, size.width, size.height - imageHeight);
+        }
 
+        // overlays are redrawn only when the zoom, the patches or the visible area change: a
+        // new PatchInfo and list of bad patches are computed for every edit
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (showPatches) {
+            patchesLayer.paint(g2, width, height, zoom, patchInfo);
+        }
         if (corruptedPatches != null) {
-            g2.setColor(CORRUPTED_COLOR);
-            g2.setStroke(new BasicStroke(3.0f / zoom));
-            for (Rectangle patch : corruptedPatches) {
-                g2.draw(new RoundRectangle2D.Float(patch.x - 2.0f / zoom, patch.y - 2.0f / zoom,
-                        patch.width + 2.0f / zoom, patch.height + 2.0f / zoom,
-                        6.0f / zoom, 6.0f / zoom));
-            }
+            corruptedPatchesLayer.paint(g2, width, height, zoom, corruptedPatches);
         }
-
         if (showLock && locked) {
-            int width = image.getWidth();
-            int height = image.getHeight();
-
-            g2.setColor(LOCK_COLOR);
-            g2.fillRect(1, 1, width - 2, height - 2);
-
-            g2.setColor(STRIPES_COLOR);
-            g2.translate(1, 1);
-            paintStripes(g2, width - 2, height - 2);
-            g2.translate(-1, -1);
+            lockLayer.paint(g2, width, height, zoom, image);
+        }
+        if (showUniformity) {
+            if (heatmap != null
+                    && heatmap.contentVersion == document.getSnapshot().contentVersion) {
+                heatmap.paint(g2, zoom);
+            } else {
+                updateHeatmap();
+            }
         }
 
         g2.dispose();
@@ -1029,10 +1172,10 @@ public class ImageViewer extends JComponent {
             int w = Math.abs(lineFromX - lineToX) + 1;
             int h = Math.abs(lineFromY - lineToY) + 1;
 
-            x = x * zoom;
-            y = y * zoom;
-            w = w * zoom;
-            h = h * zoom;
+            x = Math.round(x * zoom);
+            y = Math.round(y * zoom);
+            w = Math.round(w * zoom);
+            h = Math.round(h * zoom);
 
             int left = (getWidth() - size.width) / 2;
             int top = helpPanel.getHeight() + (getHeight() - size.height)
@@ -1049,7 +1192,8 @@ public class ImageViewer extends JComponent {
             Graphics cursor = g.create();
             cursor.setXORMode(Color.WHITE);
             cursor.setColor(Color.BLACK);
-            cursor.drawRect(lastPositionX - zoom / 2, lastPositionY - zoom / 2, zoom, zoom);
+            int pixel = getPixelSize();
+            cursor.drawRect(lastPositionX - pixel / 2, lastPositionY - pixel / 2, pixel, pixel);
             cursor.dispose();
         }
 
@@ -1085,10 +1229,10 @@ public class ImageViewer extends JComponent {
             int w = Math.abs(lineFromX - lineToX) + 1;
             int h = Math.abs(lineFromY - lineToY) + 1;
 
-            x = x * zoom;
-            y = y * zoom;
-            w = w * zoom;
-            h = h * zoom;
+            x = Math.round(x * zoom);
+            y = Math.round(y * zoom);
+            w = Math.round(w * zoom);
+            h = Math.round(h * zoom);
 
             int left = (getWidth()) / 2;
             int top = helpPanel.getHeight() + (getHeight() - size.height)
@@ -1118,10 +1262,54 @@ public class ImageViewer extends JComponent {
         }
 
         g2.dispose();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.component = "ImageViewer";
+            event.imageWidth = image.getWidth();
+            event.imageHeight = image.getHeight();
+            event.targetWidth = Math.round(image.getWidth() * zoom);
+            event.targetHeight = Math.round(image.getHeight() * zoom);
+            event.zoom = zoom;
+            event.patches = patchInfo.patches.size() + patchInfo.horizontalPatches.size()
+                    + patchInfo.verticalPatches.size();
+            event.commit();
+        }
     }
 
     private boolean mDrawHalfs = false;
 
+    /**
+     * Paints the image at a fractional zoom, from the smallest mipmap level that still has
+     * enough pixels, so that zooming out of large images does not resample all their pixels.
+     */
+    private void paintScaled(Graphics2D g, Rectangle visible) {
+        if (texture != null) {
+            g.setPaint(texture);
+            g.fill(visible);
+        }
+
+        if (pyramid == null || pyramid.getSource() != image) {
+            pyramid = new MipmapPyramid(image);
+        }
+        int level = pyramid.getLevelFor(zoom);
+        float scale = zoom * (1 << level);
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.clip(visible);
+        g2.scale(scale, scale);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, scale >= 1.0f
+                ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+                : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(pyramid.getLevel(level), 0, 0, null);
+        g2.dispose();
+    }
+
+    /** Returns the size of an image pixel on screen, at least 1. */
+    private int getPixelSize() {
+        return Math.max(1, Math.round(zoom));
+    }
+
     private void paintStripes(Graphics2D g, int width, int height) {
         //draws pinstripes at the angle specified in this class
         //and at the given distance apart
@@ -1160,7 +1348,7 @@ public class ImageViewer extends JComponent {
 
     private void setDefaultZoom() {
         int frameWidth = getWidth(), frameHeight = getHeight();
-        int z = DEFAULT_ZOOM;
+        float z = DEFAULT_ZOOM;
         if (frameWidth > 0 && frameHeight > 0) {
             float w = (float) image.getWidth() / frameWidth;
             float h = (float) image.getHeight() / frameHeight;
@@ -1168,12 +1356,23 @@ public class ImageViewer extends JComponent {
             float current = Math.max(w, h);
             float ideal = IDEAL_IMAGE_FRACTION_OF_WINDOW;
 
-            z = clamp(Math.round(ideal / current), 1, MAX_ZOOM);
+            // large images get the largest fractional zoom that still fits
+            z = ideal / current < 1 ? ZOOM_LEVELS[getZoomLevel(ideal / current)]
+                    : Math.min(Math.round(ideal / current), MAX_ZOOM);
         }
         setZoom(z);
     }
 
-    void setZoom(int value) {
+    /** Returns the index of the largest of the {@link #ZOOM_LEVELS} not above the zoom. */
+    static int getZoomLevel(float zoom) {
+        int level = 0;
+        while (level < ZOOM_LEVELS.length - 1 && ZOOM_LEVELS[level + 1] <= zoom) {
+            level++;
+        }
+        return level;
+    }
+
+    void setZoom(float value) {
         zoom = value;
         updateSize();
         if (!size.equals(getSize())) {
@@ -1183,7 +1382,7 @@ public class ImageViewer extends JComponent {
         }
     }
 
-    int getZoom() {
+    float getZoom() {
         return zoom;
     }
 
@@ -1192,15 +1391,15 @@ public class ImageViewer extends JComponent {
         int height = image.getHeight();
 
         if (size.height == 0 || (getHeight() - size.height) == 0) {
-            size.setSize(width * zoom, height * zoom + helpPanel.getHeight());
+            size.setSize(Math.round(width * zoom),
+                    Math.round(height * zoom) + helpPanel.getHeight());
         } else {
-            size.setSize(width * zoom, height * zoom);
+            size.setSize(Math.round(width * zoom), Math.round(height * zoom));
         }
     }
 
     void setPatchesVisible(boolean visible) {
         showPatches = visible;
-        updatePatchInfo();
         repaint();
     }
 
@@ -1209,8 +1408,48 @@ public class ImageViewer extends JComponent {
         repaint();
     }
 
+    void setGridVisible(boolean visible) {
+        showGrid = visible;
+        repaint();
+    }
+
+    void setUniformityVisible(boolean visible) {
+        showUniformity = visible;
+        repaint();
+    }
+
+    /** Scans a snapshot of the content off the EDT, once per content version. */
+    private void updateHeatmap() {
+        final NinePatchDocument.Snapshot snapshot = document.getSnapshot();
+        final int version = snapshot.contentVersion;
+        if (heatmapTask != null && heatmapTaskVersion == version) {
+            return;
+        }
+        heatmapTaskVersion = version;
+        heatmapTask = new SwingWorker<UniformityHeatmap, Void>() {
+            @Override
+            protected UniformityHeatmap doInBackground() {
+                return new UniformityHeatmap(snapshot.getImage(), version);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    heatmap = get();
+                    repaint();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        heatmapTask.execute();
+    }
+
     public void setImage(BufferedImage image) {
         this.image = image;
+        updatePatchInfo();
     }
 
     public BufferedImage getImage() {
@@ -1221,6 +1460,11 @@ public class ImageViewer extends JComponent {
         return patchInfo;
     }
 
+    /** Returns the document, whose snapshots can be read from any thread. */
+    public NinePatchDocument getDocument() {
+        return document;
+    }
+
     public interface StatusBar {
         void setPointerLocation(int x, int y);
     }
@@ -1229,7 +1473,8 @@ public class ImageViewer extends JComponent {
         void patchesUpdated();
     }
 
-    private final Set<PatchUpdateListener> listeners = new HashSet<PatchUpdateListener>();
+    private final Set<PatchUpdateListener> listeners =
+            new CopyOnWriteArraySet<PatchUpdateListener>();
 
     public void addPatchUpdateListener(PatchUpdateListener p) {
         listeners.add(p);
@@ -1245,6 +1490,83 @@ public class ImageViewer extends JComponent {
         }
     }
 
+    /**
+     * Records an undoable edit of the border markers if the border changed since the given
+     * snapshot was taken.
+     */
+    private void addBorderEdit(String name, BorderSnapshot before) {
+        BorderSnapshot after = new BorderSnapshot(image);
+        if (!before.equals(after)) {
+            undoManager.addEdit(new BorderEdit(name, before, after));
+        }
+    }
+
+    /** Starts a batch of border edits, see {@link #commit}. */
+    public BorderTransaction beginEdit() {
+        return new BorderTransaction(image);
+    }
+
+    /**
+     * Writes the edits of the transaction to the image as a single undoable step. The patches
+     * are recomputed and the listeners notified once, however many pixels changed.
+     */
+    public void commit(String name, BorderTransaction edit) {
+        if (edit.image != image) {
+            throw new IllegalArgumentException("Transaction started on another image");
+        }
+        BorderSnapshot before = new BorderSnapshot(image);
+        if (edit.apply()) {
+            addBorderEdit(name, before);
+            patchesChanged();
+            repaint();
+        }
+    }
+
+    void undo() {
+        if (undoManager.canUndo()) {
+            undoManager.undo();
+        }
+    }
+
+    void redo() {
+        if (undoManager.canRedo()) {
+            undoManager.redo();
+        }
+    }
+
+    private class BorderEdit extends AbstractUndoableEdit {
+        private final String name;
+        private final BorderSnapshot before;
+        private final BorderSnapshot after;
+
+        BorderEdit(String name, BorderSnapshot before, BorderSnapshot after) {
+            this.name = name;
+            this.before = before;
+            this.after = after;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            before.restore(image);
+            patchesChanged();
+            repaint();
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            after.restore(image);
+            patchesChanged();
+            repaint();
+        }
+
+        @Override
+        public String getPresentationName() {
+            return name;
+        }
+    }
+
     public void dispose() {
         Toolkit.getDefaultToolkit().removeAWTEventListener(mAwtKeyEventListener);
     }
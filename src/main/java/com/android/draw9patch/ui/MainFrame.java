@@ -17,32 +17,69 @@
 package com.android.draw9patch.ui;
 
 import com.android.draw9patch.graphics.GraphicsUtilities;
+import com.android.draw9patch.jfr.ImageIoEvent;
+import com.android.draw9patch.ui.action.BrowseAction;
 import com.android.draw9patch.ui.action.ExitAction;
 import com.android.draw9patch.ui.action.OpenAction;
+import com.android.draw9patch.ui.action.RedoAction;
 import com.android.draw9patch.ui.action.SaveAction;
+import com.android.draw9patch.ui.action.UndoAction;
 
 import java.awt.HeadlessException;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import javax.imageio.ImageIO;
 import javax.swing.ActionMap;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
+import javax.swing.JTabbedPane;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingWorker;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 public class MainFrame extends JFrame {
     private ActionMap actionsMap;
     private JMenuItem saveMenuItem;
     private ImageEditorPanel imageEditor;
+    private JTabbedPane editorTabs;
 
     private static final String TITLE_FORMAT = "Draw 9-patch: %s";
 
+    /** Maximum number of images decoded at the same time when opening several files. */
+    private static final int MAX_DECODE_THREADS = 4;
+    /** How often opening several files checks whether it was cancelled while decoding. */
+    private static final long CANCEL_POLL_MILLIS = 100;
+    /** Number of files that could not be opened listed in the error dialog. */
+    private static final int MAX_LISTED_FAILURES = 20;
+
     public MainFrame(String path) throws HeadlessException {
+        this(path, null);
+    }
+
+    /**
+     * @param path  the image to open, or null to show the open file panel
+     * @param image the image at {@code path} if it was already decoded, or null to decode it here
+     */
+    public MainFrame(String path, BufferedImage image) throws HeadlessException {
         super("Draw 9-patch");
 
         buildActions();
@@ -54,7 +91,7 @@ public class MainFrame extends JFrame {
         } else {
             try {
                 File file = new File(path);
-                BufferedImage img = GraphicsUtilities.loadCompatibleImage(file.toURI().toURL());
+                BufferedImage img = image != null ? image : loadImage(file);
                 showImageEditor(img, file.getAbsolutePath());
 
                 setTitle(String.format(TITLE_FORMAT, path));
@@ -71,18 +108,25 @@ public class MainFrame extends JFrame {
         actionsMap = new ActionMap();
         actionsMap.put(OpenAction.ACTION_NAME, new OpenAction(this));
         actionsMap.put(SaveAction.ACTION_NAME, new SaveAction(this));
+        actionsMap.put(BrowseAction.ACTION_NAME, new BrowseAction(this));
         actionsMap.put(ExitAction.ACTION_NAME, new ExitAction(this));
+        actionsMap.put(UndoAction.ACTION_NAME, new UndoAction(this));
+        actionsMap.put(RedoAction.ACTION_NAME, new RedoAction(this));
     }
 
     private void buildMenuBar() {
         JMenu fileMenu = new JMenu("File");
         JMenuItem openMenuItem = new JMenuItem();
         saveMenuItem = new JMenuItem();
+        JMenuItem browseMenuItem = new JMenuItem();
         JMenuItem exitMenuItem = new JMenuItem();
 
         openMenuItem.setAction(actionsMap.get(OpenAction.ACTION_NAME));
         fileMenu.add(openMenuItem);
 
+        browseMenuItem.setAction(actionsMap.get(BrowseAction.ACTION_NAME));
+        fileMenu.add(browseMenuItem);
+
         saveMenuItem.setAction(actionsMap.get(SaveAction.ACTION_NAME));
         saveMenuItem.setEnabled(false);
         fileMenu.add(saveMenuItem);
@@ -90,8 +134,19 @@ public class MainFrame extends JFrame {
         exitMenuItem.setAction(actionsMap.get(ExitAction.ACTION_NAME));
         fileMenu.add(exitMenuItem);
 
+        JMenu editMenu = new JMenu("Edit");
+        JMenuItem undoMenuItem = new JMenuItem();
+        JMenuItem redoMenuItem = new JMenuItem();
+
+        undoMenuItem.setAction(actionsMap.get(UndoAction.ACTION_NAME));
+        editMenu.add(undoMenuItem);
+
+        redoMenuItem.setAction(actionsMap.get(RedoAction.ACTION_NAME));
+        editMenu.add(redoMenuItem);
+
         JMenuBar menuBar = new JMenuBar();
         menuBar.add(fileMenu);
+        menuBar.add(editMenu);
         setJMenuBar(menuBar);
     }
 
@@ -118,11 +173,55 @@ public class MainFrame extends JFrame {
         }
     }
 
-    void showImageEditor(BufferedImage image, String name) {
-        if (imageEditor != null) {
-            imageEditor.dispose();
+    /** Shows the 9-patches of a resource directory chosen by the user. */
+    public void browse() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        int choice = chooser.showOpenDialog(this);
+        if (choice == JFileChooser.APPROVE_OPTION) {
+            ResourceBrowser browser = new ResourceBrowser(this, chooser.getSelectedFile());
+            browser.setLocationRelativeTo(this);
+            browser.setVisible(true);
         }
+    }
+
+    /**
+     * Opens all the given images. Directories are expanded to the PNG files they contain.
+     * Returns null if there is nothing to open.
+     */
+    public SwingWorker<?, ?> openAll(List<File> files) {
+        List<File> images = new ArrayList<File>();
+        PngFileFilter filter = new PngFileFilter();
+        for (File file : files) {
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children == null) {
+                    continue;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (!child.isDirectory() && filter.accept(child)) {
+                        images.add(child);
+                    }
+                }
+            } else {
+                images.add(file);
+            }
+        }
+
+        if (images.isEmpty()) {
+            return null;
+        } else if (images.size() == 1) {
+            return new OpenTask(images.get(0));
+        } else {
+            return new OpenFilesTask(images);
+        }
+    }
+
+    void showImageEditor(BufferedImage image, String name) {
+        disposeEditors();
         getContentPane().removeAll();
+        editorTabs = null;
         imageEditor = new ImageEditorPanel(this, image, name);
         add(imageEditor);
         saveMenuItem.setEnabled(true);
@@ -130,6 +229,62 @@ public class MainFrame extends JFrame {
         repaint();
     }
 
+    /**
+     * Opens an additional editor next to the current one. Editors are shown in tabs as soon as
+     * there is more than one of them.
+     */
+    void addImageEditor(BufferedImage image, String name) {
+        if (imageEditor == null) {
+            showImageEditor(image, name);
+            setTitle(String.format(TITLE_FORMAT, name));
+            return;
+        }
+
+        if (editorTabs == null) {
+            editorTabs = new JTabbedPane();
+            editorTabs.setOpaque(false);
+            getContentPane().removeAll();
+            editorTabs.addTab(new File(imageEditor.getPath()).getName(), imageEditor);
+            editorTabs.addChangeListener(new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent event) {
+                    ImageEditorPanel selected = (ImageEditorPanel) editorTabs.getSelectedComponent();
+                    if (selected != null) {
+                        imageEditor = selected;
+                        setTitle(String.format(TITLE_FORMAT, selected.getPath()));
+                    }
+                }
+            });
+            add(editorTabs);
+        }
+
+        editorTabs.addTab(new File(name).getName(), new ImageEditorPanel(this, image, name));
+        validate();
+        repaint();
+    }
+
+    private void disposeEditors() {
+        if (editorTabs != null) {
+            for (int i = 0; i < editorTabs.getTabCount(); i++) {
+                ((ImageEditorPanel) editorTabs.getComponentAt(i)).dispose();
+            }
+        } else if (imageEditor != null) {
+            imageEditor.dispose();
+        }
+    }
+
+    public void undo() {
+        if (imageEditor != null) {
+            imageEditor.getViewer().undo();
+        }
+    }
+
+    public void redo() {
+        if (imageEditor != null) {
+            imageEditor.getViewer().redo();
+        }
+    }
+
     public SwingWorker<?, ?> save() {
         if (imageEditor == null) {
             return null;
@@ -139,24 +294,174 @@ public class MainFrame extends JFrame {
         return file != null ? new SaveTask(file) : null;
     }
 
+    public static BufferedImage loadImage(File file) throws IOException {
+        ImageIoEvent event = new ImageIoEvent();
+        event.begin();
+
+        BufferedImage image = GraphicsUtilities.loadCompatibleImage(file.toURI().toURL());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = ImageIoEvent.OPEN;
+            event.path = file.getAbsolutePath();
+            event.fileSize = file.length();
+            if (image != null) {
+                event.imageWidth = image.getWidth();
+                event.imageHeight = image.getHeight();
+            }
+            event.commit();
+        }
+        return image;
+    }
+
     private class SaveTask extends SwingWorker<Boolean, Void> {
         private final File file;
+        private final NinePatchDocument.Snapshot snapshot;
 
         SaveTask(File file) {
             this.file = file;
+            // taken on the EDT, edits made while saving go into later snapshots
+            snapshot = imageEditor.getViewer().getDocument().getSnapshot();
         }
 
         @Override
         protected Boolean doInBackground() throws Exception {
+            ImageIoEvent event = new ImageIoEvent();
+            event.begin();
+
+            BufferedImage image = snapshot.getImage();
             try {
-                ImageIO.write(imageEditor.getImage(), "PNG", file);
+                // the smallest lossless PNG, the border is compared pixel for pixel
+                PngOptimizer.Encoding encoding = PngOptimizer.optimize(image, false);
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    out.write(encoding.data);
+                } finally {
+                    out.close();
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = ImageIoEvent.SAVE;
+                event.path = file.getAbsolutePath();
+                event.fileSize = file.length();
+                event.imageWidth = image.getWidth();
+                event.imageHeight = image.getHeight();
+                event.commit();
+            }
             return true;
         }
     }
 
+    /**
+     * Decodes several images in parallel and opens an editor for each of them as soon as it is
+     * decoded. Progress is shown in a monitor that also allows cancelling the remaining work.
+     * Files that cannot be decoded are listed in a dialog at the end.
+     */
+    private class OpenFilesTask extends SwingWorker<Void, OpenFilesTask.Result> {
+        private final List<File> files;
+        private final ProgressMonitor monitor;
+        private final List<String> failures = new ArrayList<String>();
+        private int opened;
+
+        OpenFilesTask(List<File> files) {
+            this.files = files;
+            monitor = new ProgressMonitor(MainFrame.this, "Opening 9-patches", null, 0,
+                    files.size());
+            monitor.setMillisToDecideToPopup(250);
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            int threads = Math.min(MAX_DECODE_THREADS, Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                CompletionService<Result> decoder = new ExecutorCompletionService<Result>(executor);
+                for (final File file : files) {
+                    decoder.submit(new Callable<Result>() {
+                        @Override
+                        public Result call() {
+                            try {
+                                return new Result(file, loadImage(file), null);
+                            } catch (Exception e) {
+                                return new Result(file, null, e);
+                            } catch (OutOfMemoryError e) {
+                                return new Result(file, null, e);
+                            }
+                        }
+                    });
+                }
+
+                for (int i = 0; i < files.size(); ) {
+                    if (isCancelled() || monitor.isCanceled()) {
+                        break;
+                    }
+                    Future<Result> result = decoder.poll(CANCEL_POLL_MILLIS,
+                            TimeUnit.MILLISECONDS);
+                    if (result != null) {
+                        publish(result.get());
+                        i++;
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<Result> results) {
+            for (Result result : results) {
+                if (monitor.isCanceled()) {
+                    cancel(true);
+                    return;
+                }
+                if (result.image != null) {
+                    addImageEditor(result.image, result.file.getAbsolutePath());
+                } else {
+                    failures.add(result.file.getName() + ": " + (result.error != null
+                            ? result.error.getMessage() : "not an image"));
+                }
+                opened++;
+                monitor.setNote(result.file.getName());
+                monitor.setProgress(opened);
+            }
+        }
+
+        @Override
+        protected void done() {
+            monitor.close();
+            if (!failures.isEmpty()) {
+                StringBuilder message = new StringBuilder();
+                message.append(String.format("%d of %d files could not be opened:",
+                        failures.size(), files.size()));
+                for (int i = 0; i < Math.min(failures.size(), MAX_LISTED_FAILURES); i++) {
+                    message.append('\n').append(failures.get(i));
+                }
+                if (failures.size() > MAX_LISTED_FAILURES) {
+                    message.append("\n...");
+                }
+                JOptionPane.showMessageDialog(MainFrame.this, message.toString(),
+                        "Opening 9-patches", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+
+        class Result {
+            final File file;
+            final BufferedImage image;
+            final Throwable error;
+
+            Result(File file, BufferedImage image, Throwable error) {
+                this.file = file;
+                this.image = image;
+                this.error = error;
+            }
+        }
+    }
+
     private class OpenTask extends SwingWorker<BufferedImage, Void> {
         private final File file;
 
@@ -166,7 +471,7 @@ public class MainFrame extends JFrame {
 
         @Override
         protected BufferedImage doInBackground() throws Exception {
-            return GraphicsUtilities.loadCompatibleImage(file.toURI().toURL());
+            return loadImage(file);
         }
 
         @Override
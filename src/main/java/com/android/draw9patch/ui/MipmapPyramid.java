@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Successive half size copies of an image, used to paint it zoomed out without resampling all
+ * of its pixels on every paint. Levels are allocated and built on first use, and split in
+ * tiles, so that an edit only rebuilds the tiles that cover the changed pixels.
+ */
+class MipmapPyramid {
+    /** Width and height of the tiles of every level, in pixels of that level. */
+    static final int TILE_SIZE = 64;
+
+    private final BufferedImage source;
+
+    /** Levels 1 and up, level 0 being the source image itself. */
+    private final List<Level> levels = new ArrayList<Level>();
+
+    private int[] block = new int[0];
+
+    MipmapPyramid(BufferedImage source) {
+        this.source = source;
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        while (width > 1 || height > 1) {
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+            levels.add(new Level(width, height));
+        }
+    }
+
+    BufferedImage getSource() {
+        return source;
+    }
+
+    /** Returns the number of levels, including the source image. */
+    int getLevelCount() {
+        return levels.size() + 1;
+    }
+
+    /**
+     * Returns the smallest level that still has at least one pixel per pixel on screen at the
+     * given zoom, 0 for zooms of 100% and more.
+     */
+    int getLevelFor(float zoom) {
+        int level = 0;
+        while (level < levels.size() && zoom * (2 << level) <= 1.0f) {
+            level++;
+        }
+        return level;
+    }
+
+    /** Returns the given level, rebuilding the tiles that were invalidated since last time. */
+    BufferedImage getLevel(int level) {
+        if (level == 0) {
+            return source;
+        }
+
+        Level current = levels.get(level - 1);
+        if (current.image == null) {
+            current.allocate();
+        }
+        if (current.dirtyTiles > 0) {
+            BufferedImage parent = getLevel(level - 1);
+            for (int ty = 0; ty < current.rows; ty++) {
+                for (int tx = 0; tx < current.columns; tx++) {
+                    if (current.dirty[ty * current.columns + tx]) {
+                        buildTile(parent, current, tx, ty);
+                        current.dirty[ty * current.columns + tx] = false;
+                    }
+                }
+            }
+            current.dirtyTiles = 0;
+        }
+        return current.image;
+    }
+
+    /** Marks the tiles covering the given region of the source image, in every level. */
+    void invalidate(Rectangle region) {
+        Rectangle bounds = region.intersection(
+                new Rectangle(0, 0, source.getWidth(), source.getHeight()));
+        if (bounds.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            int shift = i + 1;
+            int firstColumn = (bounds.x >> shift) / TILE_SIZE;
+            int lastColumn = ((bounds.x + bounds.width - 1) >> shift) / TILE_SIZE;
+            int firstRow = (bounds.y >> shift) / TILE_SIZE;
+            int lastRow = ((bounds.y + bounds.height - 1) >> shift) / TILE_SIZE;
+            for (int ty = firstRow; ty <= lastRow; ty++) {
+                for (int tx = firstColumn; tx <= lastColumn; tx++) {
+                    if (!level.dirty[ty * level.columns + tx]) {
+                        level.dirty[ty * level.columns + tx] = true;
+                        level.dirtyTiles++;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Averages 2x2 blocks of the parent level into one tile, weighting colors by alpha. */
+    private void buildTile(BufferedImage parent, Level level, int tx, int ty) {
+        int x0 = tx * TILE_SIZE;
+        int y0 = ty * TILE_SIZE;
+        int width = Math.min(TILE_SIZE, level.width - x0);
+        int height = Math.min(TILE_SIZE, level.height - y0);
+
+        int parentX = x0 * 2;
+        int parentY = y0 * 2;
+        int parentWidth = Math.min(width * 2, parent.getWidth() - parentX);
+        int parentHeight = Math.min(height * 2, parent.getHeight() - parentY);
+        if (block.length < parentWidth * parentHeight) {
+            block = new int[parentWidth * parentHeight];
+        }
+        GraphicsUtilities.getPixels(parent, parentX, parentY, parentWidth, parentHeight, block);
+
+        for (int y = 0; y < height; y++) {
+            int top = y * 2;
+            int bottom = Math.min(top + 1, parentHeight - 1);
+            for (int x = 0; x < width; x++) {
+                int left = x * 2;
+                int right = Math.min(left + 1, parentWidth - 1);
+                level.pixels[(y0 + y) * level.width + x0 + x] = average(
+                        block[top * parentWidth + left], block[top * parentWidth + right],
+                        block[bottom * parentWidth + left], block[bottom * parentWidth + right]);
+            }
+        }
+    }
+
+    static int average(int p0, int p1, int p2, int p3) {
+        int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+        int alpha = a0 + a1 + a2 + a3;
+        if (alpha == 0) {
+            return 0;
+        }
+        int r = (((p0 >> 16) & 0xff) * a0 + ((p1 >> 16) & 0xff) * a1
+                + ((p2 >> 16) & 0xff) * a2 + ((p3 >> 16) & 0xff) * a3) / alpha;
+        int g = (((p0 >> 8) & 0xff) * a0 + ((p1 >> 8) & 0xff) * a1
+                + ((p2 >> 8) & 0xff) * a2 + ((p3 >> 8) & 0xff) * a3) / alpha;
+        int b = ((p0 & 0xff) * a0 + (p1 & 0xff) * a1 + (p2 & 0xff) * a2 + (p3 & 0xff) * a3)
+                / alpha;
+        return ((alpha / 4) << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /** A level, whose image is only allocated the first time it is painted. */
+    private static class Level {
+        final int width;
+        final int height;
+        BufferedImage image;
+        int[] pixels;
+        final int columns;
+        final int rows;
+        final boolean[] dirty;
+        int dirtyTiles;
+
+        Level(int width, int height) {
+            this.width = width;
+            this.height = height;
+            columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+            rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+            dirty = new boolean[columns * rows];
+            Arrays.fill(dirty, true);
+            dirtyTiles = dirty.length;
+        }
+
+        void allocate() {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.TexturePaint;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Minimap of the image being edited, showing which part of it is visible in the editor. Click
+ * to jump to a location, drag to pan.
+ */
+class Navigator extends JComponent implements ImageViewer.PatchUpdateListener {
+    private static final int PREVIEW_WIDTH = 160;
+    private static final int PREVIEW_HEIGHT = 100;
+
+    private final Color BACK_COLOR = new Color(0.0f, 0.0f, 0.0f, 0.1f);
+    private final Color VIEWPORT_COLOR = new Color(1.0f, 0.0f, 0.0f, 0.8f);
+
+    private final ImageViewer viewer;
+    private final JViewport viewport;
+    private final TexturePaint texture;
+
+    private Preview preview;
+
+    Navigator(ImageViewer viewer, JViewport viewport, TexturePaint texture) {
+        this.viewer = viewer;
+        this.viewport = viewport;
+        this.texture = texture;
+
+        Dimension size = new Dimension(PREVIEW_WIDTH, PREVIEW_HEIGHT);
+        setPreferredSize(size);
+        setMinimumSize(size);
+
+        viewport.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent event) {
+                repaint();
+            }
+        });
+        viewer.addPatchUpdateListener(this);
+
+        MouseAdapter panner = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent event) {
+                scrollTo(event.getPoint());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent event) {
+                scrollTo(event.getPoint());
+            }
+        };
+        addMouseListener(panner);
+        addMouseMotionListener(panner);
+    }
+
+    /** Only the border was edited, so only the preview pixels along the sides are updated. */
+    @Override
+    public void patchesUpdated() {
+        BufferedImage image = viewer.getImage();
+        if (preview != null && preview.source == image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            preview.update(new Rectangle(0, 0, width, 1));
+            preview.update(new Rectangle(0, height - 1, width, 1));
+            preview.update(new Rectangle(0, 0, 1, height));
+            preview.update(new Rectangle(width - 1, 0, 1, height));
+        }
+        repaint();
+    }
+
+    private Preview getPreview() {
+        if (preview == null || preview.source != viewer.getImage()) {
+            preview = new Preview(viewer.getImage(), PREVIEW_WIDTH, PREVIEW_HEIGHT);
+        }
+        return preview;
+    }
+
+    /** Returns where the preview is drawn, centered in the component. */
+    private Rectangle getPreviewBounds() {
+        Preview preview = getPreview();
+        return new Rectangle((getWidth() - preview.width) / 2, (getHeight() - preview.height) / 2,
+                preview.width, preview.height);
+    }
+
+    /** Centers the editor viewport on the image location under the given point. */
+    private void scrollTo(Point point) {
+        Rectangle bounds = getPreviewBounds();
+        Rectangle image = viewer.getImageBounds();
+        Rectangle view = viewport.getViewRect();
+        Dimension extent = viewport.getViewSize();
+
+        int x = image.x + (int) ((long) (point.x - bounds.x) * image.width / bounds.width);
+        int y = image.y + (int) ((long) (point.y - bounds.y) * image.height / bounds.height);
+        x = Math.max(0, Math.min(x - view.width / 2, extent.width - view.width));
+        y = Math.max(0, Math.min(y - view.height / 2, extent.height - view.height));
+        viewport.setViewPosition(new Point(x, y));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle bounds = getPreviewBounds();
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setColor(BACK_COLOR);
+        g2.fillRect(0, 0, getWidth(), getHeight());
+        if (texture != null) {
+            g2.setPaint(texture);
+            g2.fill(bounds);
+        }
+        g2.drawImage(getPreview().image, bounds.x, bounds.y, null);
+
+        // the part of the image visible in the editor
+        Rectangle image = viewer.getImageBounds();
+        if (!image.isEmpty()) {
+            Rectangle view = viewport.getViewRect();
+            int x = bounds.x + (int) ((long) (view.x - image.x) * bounds.width / image.width);
+            int y = bounds.y + (int) ((long) (view.y - image.y) * bounds.height / image.height);
+            int w = (int) ((long) view.width * bounds.width / image.width);
+            int h = (int) ((long) view.height * bounds.height / image.height);
+            Rectangle visible = new Rectangle(x, y, w, h).intersection(bounds);
+            if (!visible.isEmpty()) {
+                g2.setColor(VIEWPORT_COLOR);
+                g2.drawRect(visible.x, visible.y, visible.width - 1, visible.height - 1);
+            }
+        }
+        g2.dispose();
+    }
+
+    /**
+     * Downscaled copy of an image where each pixel is the average of a block of source pixels,
+     * so that a change to the source only requires the blocks covering it to be averaged again.
+     */
+    static class Preview {
+        final BufferedImage source;
+        final BufferedImage image;
+        final int width;
+        final int height;
+
+        private final int[] pixels;
+        private int[] block = new int[0];
+
+        Preview(BufferedImage source, int maxWidth, int maxHeight) {
+            this.source = source;
+
+            int sourceWidth = source.getWidth();
+            int sourceHeight = source.getHeight();
+            float scale = Math.min(1.0f, Math.min((float) maxWidth / sourceWidth,
+                    (float) maxHeight / sourceHeight));
+            width = Math.max(1, Math.round(sourceWidth * scale));
+            height = Math.max(1, Math.round(sourceHeight * scale));
+
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            update(new Rectangle(0, 0, sourceWidth, sourceHeight));
+        }
+
+        /** Averages again the blocks that cover the given region of the source image. */
+        void update(Rectangle region) {
+            int sourceWidth = source.getWidth();
+            int sourceHeight = source.getHeight();
+
+            // rounding can put a source pixel in the next block, so include one more each side
+            int firstX = Math.max(0, (int) ((long) region.x * width / sourceWidth) - 1);
+            int lastX = Math.min(width - 1,
+                    (int) ((long) (region.x + region.width - 1) * width / sourceWidth) + 1);
+            int firstY = Math.max(0, (int) ((long) region.y * height / sourceHeight) - 1);
+            int lastY = Math.min(height - 1,
+                    (int) ((long) (region.y + region.height - 1) * height / sourceHeight) + 1);
+
+            int blockX = blockStart(firstX, sourceWidth, width);
+            int blockWidth = blockStart(lastX + 1, sourceWidth, width) - blockX;
+            for (int y = firstY; y <= lastY; y++) {
+                int blockY = blockStart(y, sourceHeight, height);
+                int blockHeight = blockStart(y + 1, sourceHeight, height) - blockY;
+                if (block.length < blockWidth * blockHeight) {
+                    block = new int[blockWidth * blockHeight];
+                }
+                GraphicsUtilities.getPixels(source, blockX, blockY, blockWidth, blockHeight,
+                        block);
+
+                for (int x = firstX; x <= lastX; x++) {
+                    int start = blockStart(x, sourceWidth, width) - blockX;
+                    int end = blockStart(x + 1, sourceWidth, width) - blockX;
+                    pixels[y * width + x] = average(block, blockWidth, start, end, blockHeight);
+                }
+            }
+        }
+
+        private static int blockStart(int index, int sourceSize, int size) {
+            return (int) ((long) index * sourceSize / size);
+        }
+
+        /** Averages columns [start, end) of the block, weighting colors by alpha. */
+        private static int average(int[] block, int scanline, int start, int end, int rows) {
+            long alpha = 0;
+            long r = 0;
+            long g = 0;
+            long b = 0;
+            for (int y = 0; y < rows; y++) {
+                for (int i = y * scanline + start; i < y * scanline + end; i++) {
+                    int argb = block[i];
+                    int a = argb >>> 24;
+                    alpha += a;
+                    r += ((argb >> 16) & 0xff) * a;
+                    g += ((argb >> 8) & 0xff) * a;
+                    b += (argb & 0xff) * a;
+                }
+            }
+            if (alpha == 0) {
+                return 0;
+            }
+            int count = (end - start) * rows;
+            return (int) (alpha / count) << 24 | (int) (r / alpha) << 16
+                    | (int) (g / alpha) << 8 | (int) (b / alpha);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+
+/**
+ * Publishes immutable, versioned snapshots of the 9-patch being edited. The editor publishes a
+ * new snapshot on the EDT after every change, other threads read {@link #getSnapshot()} and
+ * work off that without locks, whatever the editor does in the meantime.
+ */
+public class NinePatchDocument {
+    /** The image being edited, only touched on the EDT. */
+    private BufferedImage image;
+    private volatile Snapshot current;
+
+    NinePatchDocument(BufferedImage image, PatchInfo patchInfo) {
+        this.image = image;
+        current = new Snapshot(1, 1, copy(image), image, patchInfo);
+    }
+
+    /** Returns the latest published state of the document. */
+    public Snapshot getSnapshot() {
+        return current;
+    }
+
+    /**
+     * Publishes the current state of the image. The pixels are copied only when the image is
+     * replaced, and that copy is shared by the following snapshots, which copy the border.
+     */
+    void publish(BufferedImage image, PatchInfo patchInfo) {
+        Snapshot previous = current;
+        if (this.image == image) {
+            current = new Snapshot(previous.version + 1, previous.contentVersion,
+                    previous.content, image, patchInfo);
+        } else {
+            this.image = image;
+            current = new Snapshot(previous.version + 1, previous.contentVersion + 1,
+                    copy(image), image, patchInfo);
+        }
+    }
+
+    /**
+     * Copies the raster with the color model, so the copy has the exact pixels and palette of
+     * the image. Drawing it would round translucent colors.
+     */
+    private static BufferedImage copy(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        return new BufferedImage(colorModel, image.copyData(null),
+                colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * State of the document at a given version. The editor only ever writes the 1px border of
+     * its image, so a snapshot keeps a copy of the border and shares a copy of the rest of the
+     * pixels with the other snapshots of the same content version. It never reads the image
+     * being edited after it is published.
+     */
+    public static class Snapshot {
+        /** Incremented on every change of the document. */
+        public final long version;
+        /** Incremented when the pixels inside the border are replaced. */
+        public final int contentVersion;
+        public final PatchInfo patchInfo;
+
+        /** Pixels when the image was last replaced, never modified. */
+        private final BufferedImage content;
+        private final BorderSnapshot border;
+        private BufferedImage copy;
+
+        Snapshot(long version, int contentVersion, BufferedImage content, BufferedImage image,
+                PatchInfo patchInfo) {
+            this.version = version;
+            this.contentVersion = contentVersion;
+            this.content = content;
+            this.patchInfo = patchInfo;
+            border = new BorderSnapshot(image);
+        }
+
+        public int getWidth() {
+            return content.getWidth();
+        }
+
+        public int getHeight() {
+            return content.getHeight();
+        }
+
+        /**
+         * Returns the image as it was when the snapshot was published. The copy is made on the
+         * first call and shared by all the readers, which must not modify it.
+         */
+        public synchronized BufferedImage getImage() {
+            if (copy == null) {
+                copy = copy(content);
+                border.restore(copy);
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashes of a decoded 9-patch, so that files that differ byte-wise (encoder, metadata, color
+ * type) but show the same pixels can be found. The content, without its border, and the
+ * markers of the border are hashed separately to also find the same art sliced differently.
+ */
+public class NinePatchFingerprint {
+    private static final int MARKER_NONE = 0;
+    private static final int MARKER_PATCH = 1;
+    private static final int MARKER_LAYOUT_BOUND = 2;
+
+    /** Hash of the size and pixels of the content area. */
+    public final String contentHash;
+
+    /** Hash of the patch, padding and layout bound markers of the border. */
+    public final String borderHash;
+
+    private NinePatchFingerprint(String contentHash, String borderHash) {
+        this.contentHash = contentHash;
+        this.borderHash = borderHash;
+    }
+
+    /**
+     * Computes the fingerprint of a 9-patch, at least 3 pixels wide and high. The pixels are
+     * hashed row by row, so no copy of the whole image is made.
+     */
+    public static NinePatchFingerprint compute(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int contentWidth = width - 2;
+
+        MessageDigest content = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Math.max(width, height));
+        buffer.putInt(contentWidth).putInt(height - 2);
+        content.update(buffer.array(), 0, buffer.position());
+
+        int[] row = new int[contentWidth];
+        for (int y = 1; y < height - 1; y++) {
+            row = GraphicsUtilities.getPixels(image, 1, y, contentWidth, 1, row);
+            buffer.clear();
+            for (int pixel : row) {
+                // the color of fully transparent pixels is invisible, ignore it
+                buffer.putInt((pixel & 0xFF000000) == 0 ? 0 : pixel);
+            }
+            content.update(buffer.array(), 0, buffer.position());
+        }
+
+        MessageDigest border = newDigest();
+        hashMarkers(border, buffer, GraphicsUtilities.getPixels(image, 0, 0, width, 1, null));
+        hashMarkers(border, buffer, GraphicsUtilities.getPixels(image, 0, 0, 1, height, null));
+        hashMarkers(border, buffer,
+                GraphicsUtilities.getPixels(image, 0, height - 1, width, 1, null));
+        hashMarkers(border, buffer,
+                GraphicsUtilities.getPixels(image, width - 1, 0, 1, height, null));
+
+        return new NinePatchFingerprint(toHex(content.digest()), toHex(border.digest()));
+    }
+
+    private static void hashMarkers(MessageDigest digest, ByteBuffer buffer, int[] line) {
+        buffer.clear();
+        buffer.putInt(line.length);
+        // corners are not part of any marker
+        for (int i = 1; i < line.length - 1; i++) {
+            int marker = MARKER_NONE;
+            if (line[i] == PatchInfo.BLACK_TICK) {
+                marker = MARKER_PATCH;
+            } else if (line[i] == PatchInfo.RED_TICK) {
+                marker = MARKER_LAYOUT_BOUND;
+            }
+            buffer.put((byte) marker);
+        }
+        digest.update(buffer.array(), 0, buffer.position());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Shrinks 9-patches by collapsing the identical columns and rows of their stretch regions.
+ * A stretched region looks the same whether it starts 1 or 50 pixels wide, so only the first
+ * line of each uniform run is kept.
+ *
+ * Lines are only removed where that cannot change the padding or the layout bounds, which are
+ * measured from the edges of the image: a removed column must lie inside the content area
+ * given by the bottom padding marker (if there is one) and must not carry a layout bound tick.
+ * Removing whole columns and rows rewrites all the markers consistently.
+ */
+public class NinePatchMinimizer {
+    public static class Result {
+        /** The minimized image, or the original image if nothing could be removed. */
+        public final BufferedImage image;
+
+        public final int removedColumns;
+        public final int removedRows;
+
+        Result(BufferedImage image, int removedColumns, int removedRows) {
+            this.image = image;
+            this.removedColumns = removedColumns;
+            this.removedRows = removedRows;
+        }
+    }
+
+    public static Result minimize(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        PatchInfo patchInfo = new PatchInfo(image);
+        UniformityScan scan = new UniformityScan(image);
+
+        int[] columnDifferences = scan.columnDifferences(new Rectangle(0, 1, width, height - 2));
+        int[] rowDifferences = scan.rowDifferences(new Rectangle(1, 0, width - 2, height));
+
+        int[] top = new int[width];
+        int[] bottom = new int[width];
+        int[] left = new int[height];
+        int[] right = new int[height];
+        for (int x = 0; x < width; x++) {
+            top[x] = scan.pixels[x];
+            bottom[x] = scan.pixels[(height - 1) * width + x];
+        }
+        for (int y = 0; y < height; y++) {
+            left[y] = scan.pixels[y * width];
+            right[y] = scan.pixels[y * width + width - 1];
+        }
+
+        boolean[] removeColumns = findRemovable(patchInfo.horizontalPatchMarkers, top, bottom,
+                columnDifferences);
+        boolean[] removeRows = findRemovable(patchInfo.verticalPatchMarkers, left, right,
+                rowDifferences);
+
+        int removedColumns = count(removeColumns);
+        int removedRows = count(removeRows);
+        if (removedColumns == 0 && removedRows == 0) {
+            return new Result(image, 0, 0);
+        }
+
+        int newWidth = width - removedColumns;
+        int newHeight = height - removedRows;
+        int[] pixels = new int[newWidth * newHeight];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            if (removeRows[y]) {
+                continue;
+            }
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                if (!removeColumns[x]) {
+                    pixels[offset++] = scan.pixels[row + x];
+                }
+            }
+        }
+
+        BufferedImage minimized = new BufferedImage(newWidth, newHeight,
+                BufferedImage.TYPE_INT_ARGB);
+        minimized.setRGB(0, 0, newWidth, newHeight, pixels, 0, newWidth);
+        return new Result(minimized, removedColumns, removedRows);
+    }
+
+    /**
+     * Returns which lines along one axis can be removed.
+     * @param markers the stretch markers along the axis
+     * @param start the border holding the stretch markers
+     * @param end the opposite border, holding the padding markers
+     * @param differences the differences of each line with the previous one, border excluded
+     */
+    private static boolean[] findRemovable(List<Pair<Integer>> markers, int[] start,
+                                           int[] end, int[] differences) {
+        int length = start.length;
+        boolean[] remove = new boolean[length];
+
+        boolean hasPadding = false;
+        for (int i = 1; i < length - 1; i++) {
+            if (end[i] == PatchInfo.BLACK_TICK) {
+                hasPadding = true;
+                break;
+            }
+        }
+
+        for (Pair<Integer> marker : markers) {
+            // markers made up by PatchInfo when the border is empty have no ticks to keep
+            if (start[marker.first] != PatchInfo.BLACK_TICK) {
+                continue;
+            }
+            for (int i = marker.first + 1; i < marker.second; i++) {
+                if (differences[i] != 0 || start[i] != PatchInfo.BLACK_TICK) {
+                    continue;
+                }
+                if (hasPadding) {
+                    // strictly inside the content area, so neither padding moves
+                    if (end[i] != PatchInfo.BLACK_TICK || end[i - 1] != PatchInfo.BLACK_TICK) {
+                        continue;
+                    }
+                } else if (end[i] == PatchInfo.RED_TICK) {
+                    continue;
+                }
+                remove[i] = true;
+            }
+        }
+        return remove;
+    }
+
+    private static int count(boolean[] values) {
+        int count = 0;
+        for (boolean value : values) {
+            if (value) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a 9-patch at arbitrary sizes the way Android lays it out: fixed regions keep their
+ * size and the extra space is shared between the stretchable regions in proportion to their
+ * size. When the target is smaller than the fixed regions, they are scaled down instead.
+ *
+ * The layout only depends on the markers, so one stretcher can render any number of sizes,
+ * from several threads at once.
+ */
+public class NinePatchStretcher {
+    private final BufferedImage image;
+    private final Axis horizontal;
+    private final Axis vertical;
+
+    public NinePatchStretcher(BufferedImage image) {
+        this(image, new PatchInfo(image));
+    }
+
+    public NinePatchStretcher(BufferedImage image, PatchInfo patchInfo) {
+        this.image = image;
+        horizontal = new Axis(patchInfo.horizontalPatchMarkers, image.getWidth());
+        vertical = new Axis(patchInfo.verticalPatchMarkers, image.getHeight());
+    }
+
+    /** Width of the content, without the border. */
+    public int getWidth() {
+        return image.getWidth() - 2;
+    }
+
+    /** Height of the content, without the border. */
+    public int getHeight() {
+        return image.getHeight() - 2;
+    }
+
+    /** Renders the content of the 9-patch, without its border, at the given size. */
+    public BufferedImage render(int width, int height) {
+        int[] xs = horizontal.layout(width);
+        int[] ys = vertical.layout(height);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = result.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int j = 0; j < ys.length - 1; j++) {
+            if (ys[j + 1] == ys[j]) {
+                continue;
+            }
+            for (int i = 0; i < xs.length - 1; i++) {
+                if (xs[i + 1] == xs[i]) {
+                    continue;
+                }
+                g2.drawImage(image, xs[i], ys[j], xs[i + 1], ys[j + 1],
+                        horizontal.stops[i], vertical.stops[j],
+                        horizontal.stops[i + 1], vertical.stops[j + 1], null);
+            }
+        }
+        g2.dispose();
+        return result;
+    }
+
+    /** Splits one direction of the image in alternating fixed and stretchable segments. */
+    static class Axis {
+        /** Boundaries of the segments, in image coordinates, from 1 to the size minus 1. */
+        final int[] stops;
+
+        /** Whether each segment stretches. */
+        final boolean[] stretches;
+
+        private final int fixedLength;
+        private final int stretchLength;
+
+        Axis(List<Pair<Integer>> markers, int size) {
+            List<Integer> boundaries = new ArrayList<Integer>();
+            List<Boolean> stretching = new ArrayList<Boolean>();
+            boundaries.add(1);
+            int position = 1;
+            int stretch = 0;
+            for (Pair<Integer> marker : markers) {
+                if (marker.first > position) {
+                    boundaries.add(marker.first);
+                    stretching.add(false);
+                }
+                boundaries.add(marker.second);
+                stretching.add(true);
+                stretch += marker.second - marker.first;
+                position = marker.second;
+            }
+            if (position < size - 1) {
+                boundaries.add(size - 1);
+                stretching.add(false);
+            }
+
+            stops = new int[boundaries.size()];
+            for (int i = 0; i < stops.length; i++) {
+                stops[i] = boundaries.get(i);
+            }
+            stretches = new boolean[stretching.size()];
+            for (int i = 0; i < stretches.length; i++) {
+                stretches[i] = stretching.get(i);
+            }
+            stretchLength = stretch;
+            fixedLength = size - 2 - stretch;
+        }
+
+        /** Returns the boundaries of the segments once laid out over the given length. */
+        int[] layout(int length) {
+            int[] result = new int[stops.length];
+            boolean shrink = stretchLength == 0 || length < fixedLength;
+            int extra = length - fixedLength;
+
+            // positions are computed from running totals, so that rounding errors don't add up
+            long fixed = 0;
+            long stretch = 0;
+            for (int i = 0; i < stretches.length; i++) {
+                int segment = stops[i + 1] - stops[i];
+                if (stretches[i]) {
+                    stretch += segment;
+                } else {
+                    fixed += segment;
+                }
+
+                if (shrink) {
+                    result[i + 1] = fixedLength == 0 ? 0 : (int) (fixed * length / fixedLength);
+                } else {
+                    result[i + 1] = (int) (fixed + stretch * extra / stretchLength);
+                }
+            }
+            return result;
+        }
+    }
+}
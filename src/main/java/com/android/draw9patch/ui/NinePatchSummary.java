@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+
+/** Patch counts of a 9-patch image, small enough to be cached and listed for whole trees. */
+public class NinePatchSummary {
+    /** Width of the image, including the 1px border. */
+    public final int width;
+
+    /** Height of the image, including the 1px border. */
+    public final int height;
+
+    public final int patches;
+    public final int horizontalPatches;
+    public final int verticalPatches;
+
+    /** Number of stretchable patches that are not uniform, see {@link CorruptPatch}. */
+    public final int badPatches;
+
+    public NinePatchSummary(int width, int height, int patches, int horizontalPatches,
+                            int verticalPatches, int badPatches) {
+        this.width = width;
+        this.height = height;
+        this.patches = patches;
+        this.horizontalPatches = horizontalPatches;
+        this.verticalPatches = verticalPatches;
+        this.badPatches = badPatches;
+    }
+
+    public static NinePatchSummary compute(BufferedImage image) {
+        PatchInfo patchInfo = new PatchInfo(image);
+        return new NinePatchSummary(image.getWidth(), image.getHeight(),
+                patchInfo.patches.size(), patchInfo.horizontalPatches.size(),
+                patchInfo.verticalPatches.size(),
+                CorruptPatch.findBadPatches(image, patchInfo).size());
+    }
+
+    void store(Properties properties) {
+        properties.setProperty("width", String.valueOf(width));
+        properties.setProperty("height", String.valueOf(height));
+        properties.setProperty("patches", String.valueOf(patches));
+        properties.setProperty("horizontalPatches", String.valueOf(horizontalPatches));
+        properties.setProperty("verticalPatches", String.valueOf(verticalPatches));
+        properties.setProperty("badPatches", String.valueOf(badPatches));
+    }
+
+    /** Returns the summary stored in the given properties, or null if it is incomplete. */
+    static NinePatchSummary load(Properties properties) {
+        try {
+            return new NinePatchSummary(
+                    Integer.parseInt(properties.getProperty("width")),
+                    Integer.parseInt(properties.getProperty("height")),
+                    Integer.parseInt(properties.getProperty("patches")),
+                    Integer.parseInt(properties.getProperty("horizontalPatches")),
+                    Integer.parseInt(properties.getProperty("verticalPatches")),
+                    Integer.parseInt(properties.getProperty("badPatches")));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
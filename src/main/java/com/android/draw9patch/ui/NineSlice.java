@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Insets;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * A 9-patch expressed as the cap insets used by CSS {@code border-image} and iOS resizable
+ * images: the content without its border, and the size of the fixed edges around a single
+ * stretchable area. Only 9-patches with one stretch range per axis can be expressed that way.
+ */
+public class NineSlice {
+    /** Content of the 9-patch, without the border. */
+    public final BufferedImage content;
+    /** Size of the fixed edges, the middle of the content stretches. */
+    public final Insets capInsets;
+    public final Insets padding;
+
+    private NineSlice(BufferedImage content, Insets capInsets, Insets padding) {
+        this.content = content;
+        this.capInsets = capInsets;
+        this.padding = padding;
+    }
+
+    /**
+     * Returns the slices of a 9-patch.
+     * @throws IllegalArgumentException if an axis has several stretch ranges
+     */
+    public static NineSlice compute(BufferedImage ninePatch) {
+        PatchInfo patchInfo = new PatchInfo(ninePatch);
+        int width = ninePatch.getWidth() - 2;
+        int height = ninePatch.getHeight() - 2;
+        Pair<Integer> horizontal = getSingleRange(patchInfo.horizontalPatchMarkers, "horizontal");
+        Pair<Integer> vertical = getSingleRange(patchInfo.verticalPatchMarkers, "vertical");
+
+        // markers are in image coordinates, 1 more than in the content
+        Insets capInsets = new Insets(vertical.first - 1, horizontal.first - 1,
+                height - (vertical.second - 1), width - (horizontal.second - 1));
+        return new NineSlice(ninePatch.getSubimage(1, 1, width, height), capInsets,
+                patchInfo.getContentPadding());
+    }
+
+    private static Pair<Integer> getSingleRange(List<Pair<Integer>> markers, String axis) {
+        if (markers.size() != 1) {
+            throw new IllegalArgumentException(String.format(
+                    "%d %s stretch regions, nine slices allow only one", markers.size(), axis));
+        }
+        return markers.get(0);
+    }
+
+    /** Returns the value of the CSS {@code border-image-slice} property, without units. */
+    public String getBorderImageSlice() {
+        return String.format("%d %d %d %d fill",
+                capInsets.top, capInsets.right, capInsets.bottom, capInsets.left);
+    }
+
+    /** Returns the CSS declarations drawing an element with the image at the given url. */
+    public String getCss(String url) {
+        return String.format("border-style: solid; "
+                + "border-width: %dpx %dpx %dpx %dpx; "
+                + "border-image: url(\"%s\") %s stretch; "
+                + "padding: %dpx %dpx %dpx %dpx;",
+                capInsets.top, capInsets.right, capInsets.bottom, capInsets.left,
+                url, getBorderImageSlice(),
+                Math.max(0, padding.top - capInsets.top),
+                Math.max(0, padding.right - capInsets.right),
+                Math.max(0, padding.bottom - capInsets.bottom),
+                Math.max(0, padding.left - capInsets.left));
+    }
+}
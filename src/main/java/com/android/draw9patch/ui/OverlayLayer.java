@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Translucent image of one of the editor overlays. The visible part of the overlay is drawn
+ * into the layer once per zoom and version of the data it shows, painting it again is a single
+ * blit. The layer is never larger than the clip, whatever the size of the zoomed image.
+ */
+class OverlayLayer {
+    /** Draws an overlay in image coordinates. */
+    interface Painter {
+        void paint(Graphics2D g);
+    }
+
+    private final Painter painter;
+
+    private BufferedImage layer;
+    /** Part of the zoomed image held by the layer. */
+    private final Rectangle bounds = new Rectangle();
+    private float zoom;
+    private Object version;
+
+    OverlayLayer(Painter painter) {
+        this.painter = painter;
+    }
+
+    /**
+     * Paints the overlay of an image of the given size, with the graphics translated to the
+     * top left corner of the zoomed image. The layer is redrawn when the zoom changes, when
+     * the version differs from the previous one, as compared by identity, or when the clip
+     * reaches outside of the part that was drawn.
+     */
+    void paint(Graphics2D g, int width, int height, float zoom, Object version) {
+        Rectangle visible = new Rectangle(0, 0, Math.round(width * zoom),
+                Math.round(height * zoom));
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            visible = visible.intersection(clip);
+        }
+        if (visible.isEmpty()) {
+            return;
+        }
+
+        if (layer == null || this.zoom != zoom || this.version != version
+                || !bounds.contains(visible)) {
+            if (layer == null || layer.getWidth() != visible.width
+                    || layer.getHeight() != visible.height) {
+                layer = new BufferedImage(visible.width, visible.height,
+                        BufferedImage.TYPE_INT_ARGB);
+            } else {
+                Graphics2D clear = layer.createGraphics();
+                clear.setComposite(AlphaComposite.Clear);
+                clear.fillRect(0, 0, visible.width, visible.height);
+                clear.dispose();
+            }
+            this.zoom = zoom;
+            this.version = version;
+            bounds.setBounds(visible);
+
+            Graphics2D g2 = layer.createGraphics();
+            g2.translate(-visible.x, -visible.y);
+            g2.scale(zoom, zoom);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            painter.paint(g2);
+            g2.dispose();
+        }
+
+        g.drawImage(layer, bounds.x, bounds.y, null);
+    }
+}
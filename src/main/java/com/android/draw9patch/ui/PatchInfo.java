@@ -17,7 +17,9 @@
 package com.android.draw9patch.ui;
 
 import com.android.draw9patch.graphics.GraphicsUtilities;
+import com.android.draw9patch.jfr.PatchInfoEvent;
 
+import java.awt.Insets;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
@@ -63,9 +65,20 @@ public class PatchInfo {
     /** Beginning and end padding in the vertical direction */
     public final Pair<Integer> verticalPadding;
 
+    /**
+     * Optical insets described by the layout bound markers: the length of the runs of
+     * {@link #RED_TICK} pixels starting at either end of a border. Android reads them from the
+     * bottom and right borders; ticks drawn on the top and left borders count as well, the
+     * larger run of two opposite borders wins.
+     */
+    public final Insets layoutBounds;
+
     private BufferedImage image;
 
     public PatchInfo(BufferedImage image) {
+        PatchInfoEvent event = new PatchInfoEvent();
+        event.begin();
+
         this.image = image;
 
         int width = image.getWidth();
@@ -75,10 +88,12 @@ public class PatchInfo {
         int[] column = GraphicsUtilities.getPixels(image, 0, 0, 1, height, null);
 
         P left = getPatches(column);
+        P leftBorder = left;
         verticalStartWithPatch = left.startsWithPatch;
         verticalPatchMarkers = left.patches;
 
         P top = getPatches(row);
+        P topBorder = top;
         horizontalStartWithPatch = top.startsWithPatch;
         horizontalPatchMarkers = top.patches;
 
@@ -110,6 +125,23 @@ public class PatchInfo {
         left = PatchInfo.getPatches(column);
         verticalPaddingMarkers = left.patches;
         verticalPadding = getPadding(left.fixed);
+
+        layoutBounds = new Insets(
+                Math.max(leftBorder.layoutBoundStart, left.layoutBoundStart),
+                Math.max(topBorder.layoutBoundStart, top.layoutBoundStart),
+                Math.max(leftBorder.layoutBoundEnd, left.layoutBoundEnd),
+                Math.max(topBorder.layoutBoundEnd, top.layoutBoundEnd));
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.imageWidth = width;
+            event.imageHeight = height;
+            event.patches = patches.size();
+            event.horizontalPatches = horizontalPatches.size();
+            event.verticalPatches = verticalPatches.size();
+            event.fixed = fixed.size();
+            event.commit();
+        }
     }
 
     private List<Rectangle> getVerticalRectangles(List<Pair<Integer>> topPairs) {
@@ -134,6 +166,12 @@ public class PatchInfo {
         return rectangles;
     }
 
+    /** Returns the padding of the content area, as described by the bottom and right borders. */
+    public Insets getContentPadding() {
+        return new Insets(verticalPadding.first, horizontalPadding.first,
+                verticalPadding.second, horizontalPadding.second);
+    }
+
     private Pair<Integer> getPadding(List<Pair<Integer>> pairs) {
         if (pairs.size() == 0) {
             return new Pair<Integer>(0, 0);
@@ -170,11 +208,15 @@ public class PatchInfo {
         public final List<Pair<Integer>> fixed;
         public final List<Pair<Integer>> patches;
         public final boolean startsWithPatch;
+        public final int layoutBoundStart;
+        public final int layoutBoundEnd;
 
-        private P(List<Pair<Integer>> f, List<Pair<Integer>> p, boolean s) {
+        private P(List<Pair<Integer>> f, List<Pair<Integer>> p, boolean s, int lbs, int lbe) {
             fixed = f;
             patches = p;
             startsWithPatch = s;
+            layoutBoundStart = lbs;
+            layoutBoundEnd = lbe;
         }
     }
 
@@ -183,6 +225,9 @@ public class PatchInfo {
         int lastPixel;
         boolean first = true;
         boolean startWithPatch = false;
+        boolean leadingLayoutBound = true;
+        int layoutBoundStart = 0;
+        int layoutBoundEnd = 0;
 
         List<Pair<Integer>> fixed = new ArrayList<Pair<Integer>>();
         List<Pair<Integer>> patches = new ArrayList<Pair<Integer>>();
@@ -191,10 +236,23 @@ public class PatchInfo {
         // ignore layout bound markers for the purpose of patch calculation
         lastPixel = pixels[1] != PatchInfo.RED_TICK ? pixels[1] : 0;
 
-        for (int i = 1; i < pixels.length - 1; i++) {
+        // walks runs of identical pixels rather than single pixels
+        PixelKernels kernels = PixelKernels.get();
+        for (int i = 1, end; i < pixels.length - 1; i = end) {
+            end = kernels.runEnd(pixels, i, pixels.length - 1);
+
             // ignore layout bound markers for the purpose of patch calculation
             int pixel = pixels[i] != PatchInfo.RED_TICK ? pixels[i] : 0;
 
+            // but measure the runs of them at both ends for the layout bounds
+            if (pixels[i] == PatchInfo.RED_TICK) {
+                layoutBoundEnd += end - i;
+                if (leadingLayoutBound) layoutBoundStart += end - i;
+            } else {
+                layoutBoundEnd = 0;
+                leadingLayoutBound = false;
+            }
+
             if (pixel != lastPixel) {
                 if (lastPixel == BLACK_TICK) {
                     if (first) startWithPatch = true;
@@ -221,6 +279,6 @@ public class PatchInfo {
             fixed.clear();
         }
 
-        return new P(fixed, patches, startWithPatch);
+        return new P(fixed, patches, startWithPatch, layoutBoundStart, layoutBoundEnd);
     }
 }
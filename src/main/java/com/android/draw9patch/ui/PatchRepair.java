@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repairs the patches reported by {@link CorruptPatch}: every stretch marker whose columns (or
+ * rows) are not identical is shrunk to its largest run of identical columns (or rows). Once
+ * all markers are uniform over the whole content area, no patch can be corrupt.
+ */
+public class PatchRepair {
+    /** A stretch marker that has to shrink, in image coordinates. */
+    public static class Change {
+        /** True for a marker of the top border, false for the left border. */
+        public final boolean horizontal;
+
+        /** Range [first, second) of the marker before the repair. */
+        public final Pair<Integer> before;
+
+        /** Range [first, second) of the marker after the repair. */
+        public final Pair<Integer> after;
+
+        Change(boolean horizontal, Pair<Integer> before, Pair<Integer> after) {
+            this.horizontal = horizontal;
+            this.before = before;
+            this.after = after;
+        }
+
+        @Override
+        public String toString() {
+            return (horizontal ? "x " : "y ") + before.first + "-" + before.second
+                    + " => " + after.first + "-" + after.second;
+        }
+    }
+
+    /** Returns the marker changes that repair all the bad patches of the image. */
+    public static List<Change> findRepairs(BufferedImage image, PatchInfo patchInfo) {
+        List<Change> changes = new ArrayList<Change>();
+        if (CorruptPatch.findBadPatches(image, patchInfo).isEmpty()) {
+            return changes;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        UniformityScan scan = new UniformityScan(image);
+
+        for (Pair<Integer> marker : patchInfo.horizontalPatchMarkers) {
+            Rectangle region = new Rectangle(marker.first, 1, marker.second - marker.first,
+                    height - 2);
+            addChange(changes, true, marker, scan.columnDifferences(region));
+        }
+
+        for (Pair<Integer> marker : patchInfo.verticalPatchMarkers) {
+            Rectangle region = new Rectangle(1, marker.first, width - 2,
+                    marker.second - marker.first);
+            addChange(changes, false, marker, scan.rowDifferences(region));
+        }
+
+        return changes;
+    }
+
+    private static void addChange(List<Change> changes, boolean horizontal,
+                                  Pair<Integer> marker, int[] differences) {
+        Pair<Integer> run = StretchInference.pickRun(differences, marker.first);
+        if (!run.first.equals(marker.first) || !run.second.equals(marker.second)) {
+            changes.add(new Change(horizontal, marker, run));
+        }
+    }
+
+    /**
+     * Rewrites the markers of the top and left borders. Only stretch ticks are cleared, layout
+     * bound ticks within the old ranges are kept.
+     */
+    public static void apply(BufferedImage image, List<Change> changes) {
+        BorderTransaction edit = new BorderTransaction(image);
+        apply(edit, changes);
+        edit.apply();
+    }
+
+    /** Rewrites the markers as part of a batch of edits, see {@link #apply}. */
+    public static void apply(BorderTransaction edit, List<Change> changes) {
+        for (Change change : changes) {
+            for (int i = change.before.first; i < change.before.second; i++) {
+                int x = change.horizontal ? i : 0;
+                int y = change.horizontal ? 0 : i;
+                if (edit.get(x, y) == PatchInfo.BLACK_TICK) {
+                    edit.set(x, y, 0);
+                }
+            }
+        }
+        for (Change change : changes) {
+            for (int i = change.after.first; i < change.after.second; i++) {
+                edit.set(change.horizontal ? i : 0, change.horizontal ? 0 : i,
+                        PatchInfo.BLACK_TICK);
+            }
+        }
+    }
+
+    /** Repairs the image in place and returns the changes that were made. */
+    public static List<Change> repair(BufferedImage image) {
+        List<Change> changes = findRepairs(image, new PatchInfo(image));
+        apply(image, changes);
+        return changes;
+    }
+}
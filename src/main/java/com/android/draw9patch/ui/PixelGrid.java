@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.TexturePaint;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Grid separating the pixels of the zoomed editor canvas. The lines of a block of cells are
+ * rendered once per zoom level into a tile that is then repeated over the visible region, so
+ * painting the grid costs a single fill whatever the zoom.
+ */
+class PixelGrid {
+    /** Below this zoom the grid would hide the image. */
+    static final int MIN_ZOOM = 4;
+
+    /** Approximate size of the cached tile, in pixels on screen. */
+    private static final int TILE_SIZE = 256;
+
+    private static final int GRID_COLOR = 0x40808080;
+
+    private int zoom;
+    private TexturePaint paint;
+
+    /** Returns true if the grid is drawn at the given zoom. */
+    static boolean isVisibleAt(float zoom) {
+        return zoom >= MIN_ZOOM && zoom == (int) zoom;
+    }
+
+    /**
+     * Paints the grid over the given region, in zoomed coordinates relative to the top left
+     * corner of the image. The tile is rebuilt only when the zoom changes.
+     */
+    void paint(Graphics2D g, int zoom, Rectangle region) {
+        if (paint == null || this.zoom != zoom) {
+            this.zoom = zoom;
+            BufferedImage tile = createTile(zoom);
+            paint = new TexturePaint(tile, new Rectangle(0, 0, tile.getWidth(), tile.getHeight()));
+        }
+
+        g.setPaint(paint);
+        g.fill(region);
+    }
+
+    /** Draws a line along the top and left side of each cell of a tile. */
+    static BufferedImage createTile(int zoom) {
+        int size = Math.max(1, TILE_SIZE / zoom) * zoom;
+        int[] pixels = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            if (y % zoom == 0) {
+                Arrays.fill(pixels, y * size, (y + 1) * size, GRID_COLOR);
+            } else {
+                for (int x = 0; x < size; x += zoom) {
+                    pixels[y * size + x] = GRID_COLOR;
+                }
+            }
+        }
+
+        BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        tile.setRGB(0, 0, size, size, pixels, 0, size);
+        return tile;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.util.Arrays;
+
+/**
+ * Scans over rows of ARGB pixels shared by the patch and uniformity checks. The implementation
+ * is chosen once at runtime: SIMD kernels built on the incubating Vector API, VectorKernels in
+ * the {@code vector} source set, when they were built and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} and the CPU has vectors of at least 4 ints, plain
+ * loops otherwise. The module is opt-in, see the launchers. Setting the system property
+ * {@code draw9patch.scalar} forces the plain loops.
+ */
+abstract class PixelKernels {
+    private static final PixelKernels INSTANCE = create();
+
+    static PixelKernels get() {
+        return INSTANCE;
+    }
+
+    private static PixelKernels create() {
+        if (!Boolean.getBoolean("draw9patch.scalar")) {
+            try {
+                PixelKernels kernels = (PixelKernels) Class.forName(
+                        "com.android.draw9patch.ui.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                if (kernels.isAccelerated()) {
+                    return kernels;
+                }
+            } catch (LinkageError e) {
+                // the jdk.incubator.vector module isn't there
+            } catch (Exception e) {
+                // same
+            }
+        }
+        return new Scalar();
+    }
+
+    /** Returns true if the kernels are faster than plain loops on this machine. */
+    abstract boolean isAccelerated();
+
+    /**
+     * Returns the end of the run of pixels equal to {@code pixels[from]}: the index of the first
+     * different pixel in the range, or {@code to}.
+     */
+    abstract int runEnd(int[] pixels, int from, int to);
+
+    /** Returns true if the two ranges hold the same pixels. */
+    abstract boolean equals(int[] a, int aFrom, int[] b, int bFrom, int length);
+
+    /** Returns the number of positions at which the two ranges hold different pixels. */
+    abstract int countDifferences(int[] a, int aFrom, int[] b, int bFrom, int length);
+
+    /**
+     * Adds 1 to {@code differences[i]} for each pixel {@code i} of the range, but the first,
+     * that differs from the pixel before it.
+     */
+    abstract void addNeighbourDifferences(int[] pixels, int from, int length,
+            int[] differences);
+
+    static class Scalar extends PixelKernels {
+        @Override
+        boolean isAccelerated() {
+            return false;
+        }
+
+        @Override
+        int runEnd(int[] pixels, int from, int to) {
+            int value = pixels[from];
+            for (int i = from + 1; i < to; i++) {
+                if (pixels[i] != value) {
+                    return i;
+                }
+            }
+            return to;
+        }
+
+        @Override
+        boolean equals(int[] a, int aFrom, int[] b, int bFrom, int length) {
+            // Arrays.equals on ranges is already a vectorized intrinsic
+            return Arrays.equals(a, aFrom, aFrom + length, b, bFrom, bFrom + length);
+        }
+
+        @Override
+        int countDifferences(int[] a, int aFrom, int[] b, int bFrom, int length) {
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (a[aFrom + i] != b[bFrom + i]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        void addNeighbourDifferences(int[] pixels, int from, int length, int[] differences) {
+            int previous = pixels[from];
+            for (int i = 1; i < length; i++) {
+                int pixel = pixels[from + i];
+                if (pixel != previous) {
+                    differences[i]++;
+                }
+                previous = pixel;
+            }
+        }
+    }
+}
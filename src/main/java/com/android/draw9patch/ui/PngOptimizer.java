@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes an image in several lossless ways and keeps the smallest: 32-bit RGBA, or a palette
+ * of 1 to 8 bits per pixel when the image has at most 256 colors, each with the adaptive row
+ * filters of the ImageIO writer and without filtering, plus lossless WebP when asked and an
+ * ImageIO WebP writer is installed. Every encoding is decoded again and compared with the
+ * source, so the tick markers on the border of a 9-patch are preserved exactly.
+ */
+public class PngOptimizer {
+    public static final String PNG = "png";
+    public static final String WEBP = "webp";
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int COLOR_TYPE_INDEXED = 3;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    /** An encoding of the image. */
+    public static class Encoding {
+        public final String format;
+        public final String description;
+        public final byte[] data;
+
+        Encoding(String format, String description, byte[] data) {
+            this.format = format;
+            this.description = description;
+            this.data = data;
+        }
+    }
+
+    /** Colors of an image with at most 256 of them, and the color index of every pixel. */
+    static class Palette {
+        final int[] colors;
+        final byte[] indices;
+        final int bits;
+
+        Palette(int[] colors, byte[] indices) {
+            this.colors = colors;
+            this.indices = indices;
+            bits = colors.length <= 2 ? 1 : colors.length <= 4 ? 2 : colors.length <= 16 ? 4 : 8;
+        }
+    }
+
+    /**
+     * Returns the smallest lossless encoding of the image.
+     * @param webp whether lossless WebP is a candidate, PNG is always one
+     * @throws IOException if the image isn't sRGB, or has more than 8 bits per channel: getRGB
+     *         converts those, so the decoded candidates could not be checked against the source
+     */
+    public static Encoding optimize(BufferedImage image, boolean webp) throws IOException {
+        if (!image.getColorModel().getColorSpace().isCS_sRGB()) {
+            throw new IOException("not an sRGB image");
+        }
+        for (int size : image.getColorModel().getComponentSize()) {
+            if (size > 8) {
+                throw new IOException("more than 8 bits per channel");
+            }
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        Encoding best = smallest(null, encodePng(GraphicsUtilities.toArgb(image),
+                "rgba, adaptive filters"), pixels);
+        best = smallest(best, encodeRgba(pixels, width, height), pixels);
+
+        Palette palette = toPalette(pixels);
+        if (palette != null) {
+            String description = String.format("indexed %d-bit", palette.bits);
+            best = smallest(best, encodeIndexed(palette, width, height), pixels);
+            best = smallest(best, encodePng(toIndexed(palette, width, height),
+                    description + ", adaptive filters"), pixels);
+        }
+        if (webp) {
+            best = smallest(best, encodeLosslessWebp(image), pixels);
+        }
+        if (best == null) {
+            throw new IOException("no encoding reproduces the pixels");
+        }
+        return best;
+    }
+
+    /**
+     * Returns true if the PNG file has chunks describing its color space, gAMA, cHRM, iCCP or
+     * sRGB, which the encodings don't carry over.
+     */
+    public static boolean hasColorChunks(byte[] png) {
+        int offset = SIGNATURE.length;
+        while (offset + 8 <= png.length) {
+            int length = (png[offset] & 0xff) << 24 | (png[offset + 1] & 0xff) << 16
+                    | (png[offset + 2] & 0xff) << 8 | (png[offset + 3] & 0xff);
+            String type = new String(png, offset + 4, 4, StandardCharsets.US_ASCII);
+            if (type.equals("gAMA") || type.equals("cHRM") || type.equals("iCCP")
+                    || type.equals("sRGB")) {
+                return true;
+            }
+            if (type.equals("IDAT") || length < 0) {
+                // color chunks must come before the image data
+                return false;
+            }
+            offset += 12 + length;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the candidate if it is smaller than the best encoding so far, or the first one,
+     * and decodes to exactly the pixels.
+     */
+    private static Encoding smallest(Encoding best, Encoding candidate, int[] pixels)
+            throws IOException {
+        if (candidate == null
+                || (best != null && candidate.data.length >= best.data.length)) {
+            return best;
+        }
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(candidate.data));
+        if (decoded == null) {
+            return best;
+        }
+        int width = decoded.getWidth();
+        int[] decodedPixels = decoded.getRGB(0, 0, width, decoded.getHeight(), null, 0, width);
+        return Arrays.equals(pixels, decodedPixels) ? candidate : best;
+    }
+
+    /** Returns the palette of the pixels, or null if there are more than 256 colors. */
+    static Palette toPalette(int[] pixels) {
+        Map<Integer, Integer> indices = new HashMap<Integer, Integer>();
+        int[] colors = new int[256];
+        byte[] data = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            Integer index = indices.get(pixels[i]);
+            if (index == null) {
+                if (indices.size() == colors.length) {
+                    return null;
+                }
+                index = indices.size();
+                colors[index] = pixels[i];
+                indices.put(pixels[i], index);
+            }
+            data[i] = (byte) index.intValue();
+        }
+        return new Palette(Arrays.copyOf(colors, indices.size()), data);
+    }
+
+    private static BufferedImage toIndexed(Palette palette, int width, int height) {
+        IndexColorModel colorModel = new IndexColorModel(palette.bits, palette.colors.length,
+                palette.colors, 0, true, -1, DataBufferByte.TYPE_BYTE);
+        BufferedImage indexed = new BufferedImage(width, height, palette.bits == 8
+                ? BufferedImage.TYPE_BYTE_INDEXED : BufferedImage.TYPE_BYTE_BINARY, colorModel);
+        WritableRaster raster = indexed.getRaster();
+        if (palette.bits == 8) {
+            raster.setDataElements(0, 0, width, height, palette.indices);
+        } else {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    raster.setSample(x, y, 0, palette.indices[y * width + x]);
+                }
+            }
+        }
+        return indexed;
+    }
+
+    /** Encodes a PNG with the ImageIO writer, at the strongest deflate level it offers. */
+    private static Encoding encodePng(BufferedImage image, String description)
+            throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(PNG).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.0f);
+        }
+        return new Encoding(PNG, description, write(writer, param, image));
+    }
+
+    /** Encodes 8-bit RGBA rows without filtering. */
+    private static Encoding encodeRgba(int[] pixels, int width, int height) throws IOException {
+        byte[] rows = new byte[height * (1 + width * 4)];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            rows[offset++] = 0;
+            for (int x = 0; x < width; x++) {
+                int argb = pixels[y * width + x];
+                rows[offset++] = (byte) (argb >> 16);
+                rows[offset++] = (byte) (argb >> 8);
+                rows[offset++] = (byte) argb;
+                rows[offset++] = (byte) (argb >>> 24);
+            }
+        }
+        return new Encoding(PNG, "rgba, no filter",
+                encode(width, height, COLOR_TYPE_RGBA, 8, null, rows));
+    }
+
+    /**
+     * Encodes palette rows without filtering, which the PNG specification recommends for
+     * palette images: the filters predict color values, not indices.
+     */
+    private static Encoding encodeIndexed(Palette palette, int width, int height)
+            throws IOException {
+        int bits = palette.bits;
+        int stride = (width * bits + 7) / 8;
+        byte[] rows = new byte[height * (1 + stride)];
+        for (int y = 0; y < height; y++) {
+            int row = y * (1 + stride) + 1;
+            for (int x = 0; x < width; x++) {
+                int bit = x * bits;
+                rows[row + bit / 8] |= palette.indices[y * width + x] << (8 - bits - bit % 8);
+            }
+        }
+        return new Encoding(PNG, String.format("indexed %d-bit, no filter", bits),
+                encode(width, height, COLOR_TYPE_INDEXED, bits, palette.colors, rows));
+    }
+
+    /** Writes a PNG file around rows which already start with their filter type. */
+    private static byte[] encode(int width, int height, int colorType, int bits, int[] palette,
+            byte[] rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(width);
+        headerOut.writeInt(height);
+        headerOut.writeByte(bits);
+        headerOut.writeByte(colorType);
+        headerOut.writeByte(0); // deflate
+        headerOut.writeByte(0); // adaptive filtering
+        headerOut.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray());
+
+        if (palette != null) {
+            byte[] colors = new byte[palette.length * 3];
+            byte[] alphas = new byte[palette.length];
+            for (int i = 0; i < palette.length; i++) {
+                colors[3 * i] = (byte) (palette[i] >> 16);
+                colors[3 * i + 1] = (byte) (palette[i] >> 8);
+                colors[3 * i + 2] = (byte) palette[i];
+                alphas[i] = (byte) (palette[i] >>> 24);
+            }
+            writeChunk(out, "PLTE", colors);
+            writeChunk(out, "tRNS", alphas);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater);
+        deflated.write(rows);
+        deflated.close();
+        deflater.end();
+        writeChunk(out, "IDAT", compressed.toByteArray());
+        writeChunk(out, "IEND", new byte[0]);
+        return bytes.toByteArray();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data)
+            throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /** Returns null if no installed WebP writer offers lossless compression. */
+    private static Encoding encodeLosslessWebp(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(WEBP);
+        while (writers.hasNext()) {
+            ImageWriter writer = writers.next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!param.canWriteCompressed()) {
+                writer.dispose();
+                continue;
+            }
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            for (String type : param.getCompressionTypes()) {
+                if (type.toLowerCase(Locale.US).contains("lossless")) {
+                    param.setCompressionType(type);
+                    return new Encoding(WEBP, "lossless webp", write(writer, param, image));
+                }
+            }
+            writer.dispose();
+        }
+        return null;
+    }
+
+    private static byte[] write(ImageWriter writer, ImageWriteParam param, BufferedImage image)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageOutputStream out = ImageIO.createImageOutputStream(bytes);
+        try {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+}
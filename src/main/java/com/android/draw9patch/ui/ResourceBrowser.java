@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.Icon;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Lists all the 9-patches of a resource tree with a thumbnail and a badge for bad patches.
+ * Thumbnails are only loaded for the rows that get painted, on a background pool and through
+ * a {@link ThumbnailCache}, so that trees with thousands of images scroll smoothly.
+ */
+class ResourceBrowser extends JFrame {
+    private static final String EXTENSION_9PATCH = ".9.png";
+    private static final Color BADGE_COLOR = new Color(0.85f, 0.0f, 0.0f);
+    private static final int CELL_PADDING = 4;
+    /** Thumbnails waiting to be loaded, a few screens of rows. */
+    private static final int MAX_PENDING_THUMBNAILS = 64;
+    /** Size of the thumbnail cache on disk, pruned when the browser opens. */
+    private static final long MAX_CACHE_BYTES = 32 << 20;
+
+    private final MainFrame mainFrame;
+    private final File root;
+    private final ThumbnailCache cache = new ThumbnailCache();
+    private final ExecutorService loader;
+    /** Items waiting for their thumbnail, most recently requested first. */
+    private final BlockingDeque<Item> pending = new LinkedBlockingDeque<Item>();
+    private final DefaultListModel<Item> model = new DefaultListModel<Item>();
+    private final JList<Item> list = new JList<Item>(model);
+    private final JLabel status = new JLabel();
+    private SwingWorker<Void, File> scanner;
+
+    ResourceBrowser(MainFrame mainFrame, File root) {
+        super("9-patches in " + root.getAbsolutePath());
+        this.mainFrame = mainFrame;
+        this.root = root;
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        loader = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "draw9patch-thumbnails");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        for (int i = 0; i < threads; i++) {
+            loader.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loadThumbnails();
+                }
+            });
+        }
+
+        // a fixed cell size keeps JList from measuring every row of a large tree
+        list.setFixedCellHeight(ThumbnailCache.THUMBNAIL_SIZE + 2 * CELL_PADDING);
+        list.setCellRenderer(new ItemRenderer());
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                if (event.getClickCount() == 2) {
+                    openSelection();
+                }
+            }
+        });
+        list.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent event) {
+                if (event.getKeyCode() == KeyEvent.VK_ENTER) {
+                    openSelection();
+                }
+            }
+        });
+
+        status.setBorder(new EmptyBorder(2, 6, 2, 6));
+        status.putClientProperty("JComponent.sizeVariant", "small");
+
+        add(new JScrollPane(list));
+        add(status, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent event) {
+                if (scanner != null) {
+                    scanner.cancel(true);
+                }
+                loader.shutdownNow();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(480, 640);
+
+        scan();
+    }
+
+    private void scan() {
+        status.setText("Scanning...");
+        scanner = new SwingWorker<Void, File>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                cache.prune(MAX_CACHE_BYTES);
+                scan(root);
+                return null;
+            }
+
+            private void scan(File directory) {
+                File[] children = directory.listFiles();
+                if (children == null || isCancelled()) {
+                    return;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (child.isHidden()) {
+                        continue;
+                    }
+                    if (child.isDirectory()) {
+                        scan(child);
+                    } else if (child.getName().toLowerCase(Locale.US).endsWith(EXTENSION_9PATCH)) {
+                        publish(child);
+                    }
+                }
+            }
+
+            @Override
+            protected void process(List<File> files) {
+                for (File file : files) {
+                    model.addElement(new Item(file, model.getSize()));
+                }
+                status.setText(String.format("Scanning... %d 9-patches", model.getSize()));
+            }
+
+            @Override
+            protected void done() {
+                if (!isCancelled()) {
+                    status.setText(String.format("%d 9-patches", model.getSize()));
+                }
+            }
+        };
+        scanner.execute();
+    }
+
+    private void openSelection() {
+        Item item = list.getSelectedValue();
+        if (item != null) {
+            mainFrame.open(item.file).execute();
+        }
+    }
+
+    /**
+     * Queues the thumbnail of the given item to be loaded in the background, once. The latest
+     * requests are loaded first, and the oldest ones are dropped when too many are pending, so
+     * that the rows on screen load first however far the list was scrolled.
+     */
+    private void requestThumbnail(Item item) {
+        if (item.requested) {
+            return;
+        }
+        item.requested = true;
+        pending.offerFirst(item);
+        if (pending.size() > MAX_PENDING_THUMBNAILS) {
+            Item dropped = pending.pollLast();
+            if (dropped != null) {
+                // requested again if it is painted again
+                dropped.requested = false;
+            }
+        }
+    }
+
+    /** Loads the pending thumbnails until the window is closed. */
+    private void loadThumbnails() {
+        while (true) {
+            final Item item;
+            try {
+                item = pending.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            final ThumbnailCache.Entry entry = cache.get(item.file);
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    item.entry = entry;
+                    item.loaded = true;
+                    Rectangle bounds = list.getCellBounds(item.index, item.index);
+                    if (bounds != null) {
+                        list.repaint(bounds);
+                    }
+                }
+            });
+        }
+    }
+
+    private String getRelativePath(File file) {
+        String path = file.getParentFile().getAbsolutePath();
+        String rootPath = root.getAbsolutePath();
+        if (path.startsWith(rootPath)) {
+            path = path.substring(rootPath.length());
+            if (path.startsWith(File.separator)) {
+                path = path.substring(1);
+            }
+        }
+        return path;
+    }
+
+    /** A row of the list. Its state is only accessed on the event dispatch thread. */
+    private static class Item {
+        final File file;
+        final int index;
+        boolean requested;
+        boolean loaded;
+        ThumbnailCache.Entry entry;
+
+        Item(File file, int index) {
+            this.file = file;
+            this.index = index;
+        }
+    }
+
+    private class ItemRenderer extends DefaultListCellRenderer {
+        private final ThumbnailIcon icon = new ThumbnailIcon();
+
+        ItemRenderer() {
+            setIconTextGap(8);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            Item item = (Item) value;
+            requestThumbnail(item);
+
+            icon.item = item;
+            setIcon(icon);
+            setBorder(new EmptyBorder(CELL_PADDING, CELL_PADDING, CELL_PADDING, CELL_PADDING));
+
+            StringBuilder sb = new StringBuilder("<html><b>");
+            sb.append(item.file.getName()).append("</b><br/><small>");
+            sb.append(getRelativePath(item.file));
+            if (item.loaded) {
+                NinePatchSummary summary = item.entry != null ? item.entry.summary : null;
+                if (summary == null) {
+                    sb.append("<br/>not a valid 9-patch");
+                } else {
+                    sb.append(String.format("<br/>%d x %d px, %d patches", summary.width - 2,
+                            summary.height - 2, summary.patches + summary.horizontalPatches
+                                    + summary.verticalPatches));
+                }
+            }
+            sb.append("</small></html>");
+            setText(sb.toString());
+            return this;
+        }
+    }
+
+    /** Paints the thumbnail of the current item, with the number of bad patches as a badge. */
+    private static class ThumbnailIcon implements Icon {
+        private static final int BADGE_SIZE = 14;
+
+        Item item;
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            if (item == null || item.entry == null) {
+                return;
+            }
+
+            BufferedImage thumbnail = item.entry.thumbnail;
+            int size = ThumbnailCache.THUMBNAIL_SIZE;
+            g.drawImage(thumbnail, x + (size - thumbnail.getWidth()) / 2,
+                    y + (size - thumbnail.getHeight()) / 2, null);
+
+            NinePatchSummary summary = item.entry.summary;
+            if (summary != null && summary.badPatches > 0) {
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON);
+                int badgeX = x + size - BADGE_SIZE;
+                int badgeY = y + size - BADGE_SIZE;
+                g2.setColor(BADGE_COLOR);
+                g2.fillOval(badgeX, badgeY, BADGE_SIZE, BADGE_SIZE);
+                g2.setColor(Color.WHITE);
+                g2.setFont(g2.getFont().deriveFont(Font.BOLD, 9.0f));
+                String count = summary.badPatches > 9 ? "!" : String.valueOf(summary.badPatches);
+                int textWidth = g2.getFontMetrics().stringWidth(count);
+                g2.drawString(count, badgeX + (BADGE_SIZE - textWidth) / 2,
+                        badgeY + BADGE_SIZE - 4);
+                g2.dispose();
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return ThumbnailCache.THUMBNAIL_SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return ThumbnailCache.THUMBNAIL_SIZE;
+        }
+    }
+}
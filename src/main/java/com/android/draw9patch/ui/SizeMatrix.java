@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Contact sheet of a 9-patch rendered at every combination of a list of widths and heights,
+ * such as common button widths and list row heights. The cells are rendered in parallel with
+ * a shared {@link NinePatchStretcher}.
+ */
+public class SizeMatrix {
+    public static final int[] DEFAULT_WIDTHS = { 48, 96, 160, 240, 320 };
+    public static final int[] DEFAULT_HEIGHTS = { 32, 48, 56, 72 };
+
+    private static final int MARGIN = 10;
+    private static final Color BACK_COLOR = new Color(0xeeeeee);
+    private static final Color LABEL_COLOR = new Color(0x666666);
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 10);
+
+    /** Parses a comma or space separated list of positive sizes. */
+    public static int[] parseSizes(String text) {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (String token : text.split("[,\\s]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int size;
+            try {
+                size = Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a size: " + token);
+            }
+            if (size <= 0) {
+                throw new IllegalArgumentException("Not a size: " + token);
+            }
+            sizes.add(size);
+        }
+        if (sizes.isEmpty()) {
+            throw new IllegalArgumentException("No sizes");
+        }
+
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = sizes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Renders the 9-patch at each size, one column per width and one row per height, with each
+     * cell labeled with its size.
+     */
+    public static BufferedImage render(final NinePatchStretcher stretcher, int[] widths,
+            int[] heights) throws InterruptedException {
+        List<Callable<BufferedImage>> tasks = new ArrayList<Callable<BufferedImage>>();
+        for (final int height : heights) {
+            for (final int width : widths) {
+                tasks.add(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() {
+                        return stretcher.render(width, height);
+                    }
+                });
+            }
+        }
+        List<Future<BufferedImage>> cells = ForkJoinPool.commonPool().invokeAll(tasks);
+
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = probe.createGraphics();
+        FontMetrics metrics = g2.getFontMetrics(LABEL_FONT);
+        g2.dispose();
+        int labelHeight = metrics.getHeight();
+
+        // columns are wide enough for their labels
+        int[] columnWidths = new int[widths.length];
+        int sheetWidth = MARGIN;
+        for (int i = 0; i < widths.length; i++) {
+            columnWidths[i] = widths[i];
+            for (int height : heights) {
+                columnWidths[i] = Math.max(columnWidths[i],
+                        metrics.stringWidth(label(widths[i], height)));
+            }
+            sheetWidth += columnWidths[i] + MARGIN;
+        }
+        int sheetHeight = MARGIN;
+        for (int height : heights) {
+            sheetHeight += labelHeight + height + MARGIN;
+        }
+
+        BufferedImage sheet = new BufferedImage(sheetWidth, sheetHeight,
+                BufferedImage.TYPE_INT_ARGB);
+        g2 = sheet.createGraphics();
+        g2.setColor(BACK_COLOR);
+        g2.fillRect(0, 0, sheetWidth, sheetHeight);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(LABEL_FONT);
+        g2.setColor(LABEL_COLOR);
+
+        int index = 0;
+        int y = MARGIN;
+        for (int height : heights) {
+            int x = MARGIN;
+            for (int i = 0; i < widths.length; i++) {
+                g2.drawString(label(widths[i], height), x, y + metrics.getAscent());
+                g2.drawImage(getCell(cells.get(index++)), x, y + labelHeight, null);
+                x += columnWidths[i] + MARGIN;
+            }
+            y += labelHeight + height + MARGIN;
+        }
+        g2.dispose();
+        return sheet;
+    }
+
+    private static BufferedImage getCell(Future<BufferedImage> cell)
+            throws InterruptedException {
+        try {
+            return cell.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static String label(int width, int height) {
+        return width + "x" + height;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+
+/**
+ * Shows the 9-patch at a list of device sizes, see {@link SizeMatrix}, and exports the contact
+ * sheet. The sheet is rendered off the event thread whenever the patches or the sizes change.
+ */
+class SizeMatrixPanel extends JPanel implements ImageViewer.PatchUpdateListener {
+    private final ImageViewer viewer;
+    private final JTextField widthsField;
+    private final JTextField heightsField;
+    private final JLabel sheetLabel;
+
+    private BufferedImage sheet;
+    private RenderTask task;
+
+    SizeMatrixPanel(ImageViewer viewer) {
+        super(new BorderLayout());
+        this.viewer = viewer;
+        setOpaque(false);
+
+        ActionListener refresh = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                refresh();
+            }
+        };
+
+        widthsField = createSizesField(SizeMatrix.DEFAULT_WIDTHS, refresh);
+        heightsField = createSizesField(SizeMatrix.DEFAULT_HEIGHTS, refresh);
+
+        JButton exportButton = new JButton("Export...");
+        exportButton.putClientProperty("JComponent.sizeVariant", "small");
+        exportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                export();
+            }
+        });
+
+        JPanel sizes = new JPanel(new FlowLayout(FlowLayout.LEADING));
+        sizes.setOpaque(false);
+        sizes.add(createLabel("Widths:"));
+        sizes.add(widthsField);
+        sizes.add(createLabel("Heights:"));
+        sizes.add(heightsField);
+        sizes.add(exportButton);
+        add(sizes, BorderLayout.NORTH);
+
+        sheetLabel = new JLabel();
+        sheetLabel.setVerticalAlignment(SwingConstants.TOP);
+        sheetLabel.setHorizontalAlignment(SwingConstants.LEADING);
+        JScrollPane scroller = new JScrollPane(sheetLabel);
+        scroller.setBorder(null);
+        add(scroller);
+
+        viewer.addPatchUpdateListener(this);
+        refresh();
+    }
+
+    private static JTextField createSizesField(int[] sizes, ActionListener listener) {
+        StringBuilder text = new StringBuilder();
+        for (int size : sizes) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(size);
+        }
+        JTextField field = new JTextField(text.toString(), 14);
+        field.putClientProperty("JComponent.sizeVariant", "small");
+        field.addActionListener(listener);
+        return field;
+    }
+
+    private static JLabel createLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.putClientProperty("JComponent.sizeVariant", "small");
+        return label;
+    }
+
+    @Override
+    public void patchesUpdated() {
+        refresh();
+    }
+
+    private void refresh() {
+        int[] widths;
+        int[] heights;
+        try {
+            widths = SizeMatrix.parseSizes(widthsField.getText());
+            heights = SizeMatrix.parseSizes(heightsField.getText());
+        } catch (IllegalArgumentException e) {
+            sheetLabel.setIcon(null);
+            sheetLabel.setText(e.getMessage());
+            return;
+        }
+
+        if (task != null) {
+            task.cancel(false);
+        }
+        task = new RenderTask(viewer.getDocument().getSnapshot(), widths, heights);
+        task.execute();
+    }
+
+    private void export() {
+        if (sheet == null) {
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("sizes.png"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            ImageIO.write(sheet, "PNG", chooser.getSelectedFile());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Export failed",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private class RenderTask extends SwingWorker<BufferedImage, Void> {
+        private final NinePatchDocument.Snapshot snapshot;
+        private final int[] widths;
+        private final int[] heights;
+
+        RenderTask(NinePatchDocument.Snapshot snapshot, int[] widths, int[] heights) {
+            this.snapshot = snapshot;
+            this.widths = widths;
+            this.heights = heights;
+        }
+
+        @Override
+        protected BufferedImage doInBackground() throws Exception {
+            NinePatchStretcher stretcher =
+                    new NinePatchStretcher(snapshot.getImage(), snapshot.patchInfo);
+            return SizeMatrix.render(stretcher, widths, heights);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                sheet = get();
+                sheetLabel.setText(null);
+                sheetLabel.setIcon(new ImageIcon(sheet));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
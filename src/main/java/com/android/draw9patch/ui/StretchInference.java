@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Proposes stretch regions for a 9-patch: the longest run of identical columns of the content
+ * area becomes the top marker and the longest run of identical rows becomes the left marker.
+ */
+public class StretchInference {
+    /** Stretch markers proposed for an image, in image coordinates. */
+    public static class Suggestion {
+        /** Range [first, second) of the top border to mark as stretchable. */
+        public final Pair<Integer> horizontal;
+
+        /** Range [first, second) of the left border to mark as stretchable. */
+        public final Pair<Integer> vertical;
+
+        Suggestion(Pair<Integer> horizontal, Pair<Integer> vertical) {
+            this.horizontal = horizontal;
+            this.vertical = vertical;
+        }
+
+        @Override
+        public String toString() {
+            return "Suggestion[x " + horizontal.first + "-" + horizontal.second
+                    + ", y " + vertical.first + "-" + vertical.second + "]";
+        }
+    }
+
+    /**
+     * Infers stretch markers for the given 9-patch, which must have its 1px border already,
+     * and be at least 3 pixels in each dimension.
+     */
+    public static Suggestion infer(BufferedImage image) {
+        return infer(new UniformityScan(image), image.getWidth(), image.getHeight());
+    }
+
+    static Suggestion infer(UniformityScan scan, int width, int height) {
+        Rectangle content = new Rectangle(1, 1, width - 2, height - 2);
+        return new Suggestion(
+                pickRun(scan.columnDifferences(content), content.x),
+                pickRun(scan.rowDifferences(content), content.y));
+    }
+
+    /**
+     * Returns the longest run of identical lines, shifted by offset. When several runs have the
+     * same length the one closest to the center wins, as stretching the middle of an asset is
+     * the common case.
+     */
+    static Pair<Integer> pickRun(int[] differences, int offset) {
+        List<Pair<Integer>> runs = UniformityScan.uniformRuns(differences);
+        Pair<Integer> best = null;
+        int bestLength = 0;
+        int bestDistance = 0;
+        for (Pair<Integer> run : runs) {
+            int length = run.second - run.first;
+            int distance = Math.abs(run.first + run.second - differences.length);
+            if (length > bestLength || (length == bestLength && distance < bestDistance)) {
+                best = run;
+                bestLength = length;
+                bestDistance = distance;
+            }
+        }
+        return new Pair<Integer>(best.first + offset, best.second + offset);
+    }
+
+    /**
+     * Replaces the stretch markers of the top and left borders with the suggested ones. Layout
+     * bound markers outside of the suggested ranges are kept.
+     */
+    public static void apply(BufferedImage image, Suggestion suggestion) {
+        BorderTransaction edit = new BorderTransaction(image);
+        apply(edit, suggestion);
+        edit.apply();
+    }
+
+    /** Replaces the stretch markers as part of a batch of edits, see {@link #apply}. */
+    public static void apply(BorderTransaction edit, Suggestion suggestion) {
+        int width = edit.image.getWidth();
+        int height = edit.image.getHeight();
+
+        for (int x = 1; x < width - 1; x++) {
+            boolean tick = x >= suggestion.horizontal.first && x < suggestion.horizontal.second;
+            if (tick) {
+                edit.set(x, 0, PatchInfo.BLACK_TICK);
+            } else if (edit.get(x, 0) == PatchInfo.BLACK_TICK) {
+                edit.set(x, 0, 0);
+            }
+        }
+
+        for (int y = 1; y < height - 1; y++) {
+            boolean tick = y >= suggestion.vertical.first && y < suggestion.vertical.second;
+            if (tick) {
+                edit.set(0, y, PatchInfo.BLACK_TICK);
+            } else if (edit.get(0, y) == PatchInfo.BLACK_TICK) {
+                edit.set(0, y, 0);
+            }
+        }
+    }
+}
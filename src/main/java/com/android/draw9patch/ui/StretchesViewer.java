@@ -18,6 +18,9 @@
 
 package com.android.draw9patch.ui;
 
+import com.android.draw9patch.jfr.PaintEvent;
+import com.android.draw9patch.jfr.TextLayoutEvent;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
@@ -78,6 +81,7 @@ public class StretchesViewer extends JTabbedPane {
         tab.addTab("↕", vertical);
         tab.addTab("↔", horizontal);
         tab.addTab("Text", mExact);
+        tab.addTab("Sizes", new SizeMatrixPanel(viewer));
     }
 
     @Override
@@ -255,6 +259,26 @@ public class StretchesViewer extends JTabbedPane {
 
         @Override
         protected void paintComponent(Graphics g) {
+            PaintEvent event = new PaintEvent();
+            event.begin();
+
+            paintStretches(g);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.component = "StretchView";
+                event.imageWidth = image.getWidth();
+                event.imageHeight = image.getHeight();
+                event.targetWidth = scaledWidth;
+                event.targetHeight = scaledHeight;
+                event.zoom = mScale;
+                event.patches = patchInfo.patches.size() + patchInfo.horizontalPatches.size()
+                        + patchInfo.verticalPatches.size();
+                event.commit();
+            }
+        }
+
+        private void paintStretches(Graphics g) {
             int x = (getWidth() - scaledWidth) / 2;
             int y = (getHeight() - scaledHeight) / 2;
 
@@ -459,8 +483,20 @@ public class StretchesViewer extends JTabbedPane {
         }
 
         public ArrayList<LineRenderContext> prepareForRender(Gravity horizontal, Gravity vertical) {
+            TextLayoutEvent event = new TextLayoutEvent();
+            event.begin();
+
             ArrayList<LineRenderContext> list = createLineContexts(horizontal);
             countVerticalPositions(list, vertical);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.textLength = mText.length();
+                event.lines = list.size();
+                event.maxWidth = mMaxWidth;
+                event.maxHeight = mMaxHeight;
+                event.commit();
+            }
             return list;
         }
 
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * On-disk cache of 9-patch thumbnails and {@link NinePatchSummary summaries}. Entries are keyed
+ * by the absolute path of the image and are only valid as long as its modification time and
+ * length do not change. The cache is kept under a size limit by {@link #prune}.
+ */
+class ThumbnailCache {
+    /** Maximum width and height of a thumbnail. */
+    static final int THUMBNAIL_SIZE = 48;
+
+    private static final String INFO_EXTENSION = ".properties";
+    private static final String THUMBNAIL_EXTENSION = ".png";
+
+    private final File directory;
+
+    ThumbnailCache() {
+        this(new File(System.getProperty("user.home"),
+                ".android" + File.separator + "draw9patch" + File.separator + "thumbnails"));
+    }
+
+    ThumbnailCache(File directory) {
+        this.directory = directory;
+    }
+
+    static class Entry {
+        final BufferedImage thumbnail;
+        /** Null if the file is not a valid 9-patch. */
+        final NinePatchSummary summary;
+
+        Entry(BufferedImage thumbnail, NinePatchSummary summary) {
+            this.thumbnail = thumbnail;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Returns the cached entry of the given file, decoding and analyzing the file if needed.
+     * Returns null if the file cannot be decoded. Safe to call from any thread.
+     */
+    Entry get(File file) {
+        String key = getKey(file);
+        File info = new File(directory, key + INFO_EXTENSION);
+        File thumbnailFile = new File(directory, key + THUMBNAIL_EXTENSION);
+
+        Entry entry = read(file, info, thumbnailFile);
+        if (entry != null) {
+            return entry;
+        }
+
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+        } catch (IOException e) {
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+
+        NinePatchSummary summary = null;
+        if (image.getWidth() > 2 && image.getHeight() > 2) {
+            summary = NinePatchSummary.compute(image);
+        }
+        entry = new Entry(createThumbnail(image), summary);
+        write(file, entry, info, thumbnailFile);
+        return entry;
+    }
+
+    private Entry read(File file, File info, File thumbnailFile) {
+        if (!info.isFile() || !thumbnailFile.isFile()) {
+            return null;
+        }
+
+        try {
+            Properties properties = new Properties();
+            InputStream in = new FileInputStream(info);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+
+            if (!String.valueOf(file.lastModified()).equals(properties.getProperty("lastModified"))
+                    || !String.valueOf(file.length()).equals(properties.getProperty("length"))) {
+                return null;
+            }
+
+            BufferedImage thumbnail = ImageIO.read(thumbnailFile);
+            if (thumbnail == null) {
+                return null;
+            }
+            // the modification time of the info file orders the entries for pruning
+            info.setLastModified(System.currentTimeMillis());
+            return new Entry(thumbnail, NinePatchSummary.load(properties));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void write(File file, Entry entry, File info, File thumbnailFile) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("path", file.getAbsolutePath());
+        properties.setProperty("lastModified", String.valueOf(file.lastModified()));
+        properties.setProperty("length", String.valueOf(file.length()));
+        if (entry.summary != null) {
+            entry.summary.store(properties);
+        }
+
+        try {
+            // the thumbnail goes first so that a valid info file always has its thumbnail
+            ImageIO.write(entry.thumbnail, "PNG", thumbnailFile);
+            OutputStream out = new FileOutputStream(info);
+            try {
+                properties.store(out, null);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            // the cache is an optimization only
+            info.delete();
+        }
+    }
+
+    /**
+     * Deletes the entries of files that no longer exist, then the least recently used entries
+     * until the cache takes at most the given number of bytes.
+     */
+    void prune(long maxBytes) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        List<File> entries = new ArrayList<File>();
+        long size = 0;
+        for (File info : files) {
+            if (!info.getName().endsWith(INFO_EXTENSION)) {
+                continue;
+            }
+            String path = null;
+            try {
+                Properties properties = new Properties();
+                InputStream in = new FileInputStream(info);
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+                path = properties.getProperty("path");
+            } catch (IOException e) {
+                // deleted below
+            }
+            if (path == null || !new File(path).isFile()) {
+                delete(info);
+                continue;
+            }
+            entries.add(info);
+            size += info.length() + getThumbnailFile(info).length();
+        }
+
+        // thumbnails left without their info file by an interrupted write
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(THUMBNAIL_EXTENSION) && !new File(directory, name.substring(0,
+                    name.length() - THUMBNAIL_EXTENSION.length()) + INFO_EXTENSION).isFile()) {
+                file.delete();
+            }
+        }
+
+        if (size <= maxBytes) {
+            return;
+        }
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.valueOf(f1.lastModified()).compareTo(f2.lastModified());
+            }
+        });
+        for (File info : entries) {
+            if (size <= maxBytes) {
+                break;
+            }
+            size -= info.length() + getThumbnailFile(info).length();
+            delete(info);
+        }
+    }
+
+    private File getThumbnailFile(File info) {
+        String name = info.getName();
+        return new File(directory, name.substring(0, name.length() - INFO_EXTENSION.length())
+                + THUMBNAIL_EXTENSION);
+    }
+
+    /** Deletes an entry, the info file first so that it is never left without a thumbnail. */
+    private void delete(File info) {
+        info.delete();
+        getThumbnailFile(info).delete();
+    }
+
+    /** Scales the content of the 9-patch, without its border, to fit a thumbnail. */
+    static BufferedImage createThumbnail(BufferedImage image) {
+        int x = 0;
+        int y = 0;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width > 2 && height > 2) {
+            x = y = 1;
+            width -= 2;
+            height -= 2;
+        }
+
+        float scale = Math.min(1.0f, (float) THUMBNAIL_SIZE / Math.max(width, height));
+        int thumbnailWidth = Math.max(1, Math.round(width * scale));
+        int thumbnailHeight = Math.max(1, Math.round(height * scale));
+
+        BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = thumbnail.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.drawImage(image, 0, 0, thumbnailWidth, thumbnailHeight,
+                x, y, x + width, y + height, null);
+        g2.dispose();
+        return thumbnail;
+    }
+
+    private static String getKey(File file) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(file.getAbsolutePath().getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
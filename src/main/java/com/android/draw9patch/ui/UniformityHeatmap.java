@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Shades each content column and row of a 9-patch by how much it differs from its closest
+ * neighbour, see {@link UniformityScan}. Lines identical to a neighbour are tinted green, as a
+ * stretch region over them is invisible, the others red in proportion to their differences.
+ * The shades are kept as a 1px high strip and a 1px wide strip, which are scaled over the
+ * content when painting.
+ */
+class UniformityHeatmap {
+    private static final int UNIFORM_COLOR = 0x3000c000;
+    private static final int DIFFERENT_RGB = 0xff2020;
+
+    /** Version of the content the heatmap was computed from, see {@link NinePatchDocument}. */
+    final int contentVersion;
+    final BufferedImage columns;
+    final BufferedImage rows;
+
+    UniformityHeatmap(BufferedImage image, int contentVersion) {
+        this.contentVersion = contentVersion;
+        Rectangle content = new Rectangle(1, 1, image.getWidth() - 2, image.getHeight() - 2);
+        UniformityScan scan = new UniformityScan(image);
+
+        int[] columnShades = shades(scan.columnDifferences(content), content.height);
+        columns = new BufferedImage(content.width, 1, BufferedImage.TYPE_INT_ARGB);
+        columns.setRGB(0, 0, content.width, 1, columnShades, 0, content.width);
+
+        int[] rowShades = shades(scan.rowDifferences(content), content.width);
+        rows = new BufferedImage(1, content.height, BufferedImage.TYPE_INT_ARGB);
+        rows.setRGB(0, 0, 1, content.height, rowShades, 0, 1);
+    }
+
+    /**
+     * Returns the shade of each line given the differences of each line with the previous one.
+     * A line takes the smaller difference of its two neighbours.
+     */
+    static int[] shades(int[] differences, int length) {
+        int[] shades = new int[differences.length];
+        for (int i = 0; i < differences.length; i++) {
+            int left = i > 0 ? differences[i] : Integer.MAX_VALUE;
+            int right = i + 1 < differences.length ? differences[i + 1] : Integer.MAX_VALUE;
+            int difference = Math.min(left, right);
+            if (difference == Integer.MAX_VALUE) {
+                difference = 0;
+            }
+            if (difference == 0) {
+                shades[i] = UNIFORM_COLOR;
+            } else {
+                int alpha = 0x40 + (int) (0x9fL * difference / length);
+                shades[i] = alpha << 24 | DIFFERENT_RGB;
+            }
+        }
+        return shades;
+    }
+
+    /** Paints the shades over the content of the image, drawn at the given zoom. */
+    void paint(Graphics2D g2, float zoom) {
+        Object interpolation = g2.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        int x = Math.round(zoom);
+        int y = Math.round(zoom);
+        int width = Math.round((columns.getWidth() + 1) * zoom) - x;
+        int height = Math.round((rows.getHeight() + 1) * zoom) - y;
+        g2.drawImage(columns, x, y, width, height, null);
+        g2.drawImage(rows, x, y, width, height, null);
+        if (interpolation != null) {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+}
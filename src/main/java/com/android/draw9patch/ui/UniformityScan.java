@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Measures how much each column (or row) of a region differs from the previous one. Identical
+ * neighbouring lines can be stretched without visible artifacts, which is what the inference,
+ * repair and minimizing tools build upon.
+ *
+ * The scans work on a single bulk copy of the pixels and split large regions in bands of rows
+ * that are processed in parallel.
+ */
+public class UniformityScan {
+    /** Regions with fewer pixels than this are scanned on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final PixelKernels KERNELS = PixelKernels.get();
+
+    /** Pixels of the scanned image, row by row. */
+    final int[] pixels;
+
+    /** Width of the scanned image. */
+    final int scanline;
+
+    public UniformityScan(BufferedImage image) {
+        this(GraphicsUtilities.getPixels(image, 0, 0, image.getWidth(), image.getHeight(), null),
+                image.getWidth());
+    }
+
+    UniformityScan(int[] pixels, int scanline) {
+        this.pixels = pixels;
+        this.scanline = scanline;
+    }
+
+    /**
+     * Returns, for each column of the region, the number of rows in which it differs from the
+     * column to its left. The first entry is always 0.
+     */
+    public int[] columnDifferences(Rectangle region) {
+        if (region.width == 0 || region.height == 0) {
+            return new int[region.width];
+        }
+        if ((long) region.width * region.height < PARALLEL_THRESHOLD) {
+            return columnDifferences(region, region.y, region.y + region.height);
+        }
+        return ForkJoinPool.commonPool().invoke(new ColumnTask(region, region.y,
+                region.y + region.height, bandHeight(region)));
+    }
+
+    /**
+     * Returns, for each row of the region, the number of columns in which it differs from the
+     * row above it. The first entry is always 0.
+     */
+    public int[] rowDifferences(Rectangle region) {
+        int[] differences = new int[region.height];
+        if (region.width == 0 || region.height == 0) {
+            return differences;
+        }
+        if ((long) region.width * region.height < PARALLEL_THRESHOLD) {
+            rowDifferences(region, 1, region.height, differences);
+        } else {
+            ForkJoinPool.commonPool().invoke(new RowTask(region, 1, region.height,
+                    bandHeight(region), differences));
+        }
+        return differences;
+    }
+
+    private static int bandHeight(Rectangle region) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(Math.max(1, PARALLEL_THRESHOLD / region.width),
+                region.height / (parallelism * 4));
+    }
+
+    private int[] columnDifferences(Rectangle region, int fromRow, int toRow) {
+        int[] differences = new int[region.width];
+        for (int y = fromRow; y < toRow; y++) {
+            KERNELS.addNeighbourDifferences(pixels, y * scanline + region.x, region.width,
+                    differences);
+        }
+        return differences;
+    }
+
+    private void rowDifferences(Rectangle region, int from, int to, int[] differences) {
+        for (int j = from; j < to; j++) {
+            int offset = (region.y + j) * scanline + region.x;
+            differences[j] = KERNELS.countDifferences(pixels, offset, pixels, offset - scanline,
+                    region.width);
+        }
+    }
+
+    /**
+     * Returns the maximal runs of identical lines given the differences computed by
+     * {@link #columnDifferences(Rectangle)} or {@link #rowDifferences(Rectangle)}. Each run is
+     * returned as [start, end) offsets into the array, so every line is part of exactly one run.
+     */
+    public static List<Pair<Integer>> uniformRuns(int[] differences) {
+        List<Pair<Integer>> runs = new ArrayList<Pair<Integer>>();
+        if (differences.length == 0) {
+            return runs;
+        }
+
+        int start = 0;
+        for (int i = 1; i < differences.length; i++) {
+            if (differences[i] != 0) {
+                runs.add(new Pair<Integer>(start, i));
+                start = i;
+            }
+        }
+        runs.add(new Pair<Integer>(start, differences.length));
+        return runs;
+    }
+
+    private class ColumnTask extends RecursiveTask<int[]> {
+        private final Rectangle region;
+        private final int fromRow;
+        private final int toRow;
+        private final int band;
+
+        ColumnTask(Rectangle region, int fromRow, int toRow, int band) {
+            this.region = region;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.band = band;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (toRow - fromRow <= band) {
+                return columnDifferences(region, fromRow, toRow);
+            }
+
+            int middle = (fromRow + toRow) >>> 1;
+            ColumnTask top = new ColumnTask(region, fromRow, middle, band);
+            top.fork();
+            int[] differences = new ColumnTask(region, middle, toRow, band).compute();
+            int[] other = top.join();
+            for (int i = 0; i < differences.length; i++) {
+                differences[i] += other[i];
+            }
+            return differences;
+        }
+    }
+
+    private class RowTask extends RecursiveTask<Void> {
+        private final Rectangle region;
+        private final int from;
+        private final int to;
+        private final int band;
+        private final int[] differences;
+
+        RowTask(Rectangle region, int from, int to, int band, int[] differences) {
+            this.region = region;
+            this.from = from;
+            this.to = to;
+            this.band = band;
+            this.differences = differences;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from <= band) {
+                rowDifferences(region, from, to, differences);
+                return null;
+            }
+
+            int middle = (from + to) >>> 1;
+            RowTask top = new RowTask(region, from, middle, band, differences);
+            top.fork();
+            new RowTask(region, middle, to, band, differences).compute();
+            top.join();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui.action;
+
+import com.android.draw9patch.ui.MainFrame;
+
+import javax.swing.AbstractAction;
+import javax.swing.KeyStroke;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.ActionEvent;
+import java.awt.Toolkit;
+
+public class RedoAction extends AbstractAction {
+    public static final String ACTION_NAME = "redo";
+    private MainFrame frame;
+
+    public RedoAction(MainFrame frame) {
+        this.frame = frame;
+        putValue(NAME, "Redo");
+        putValue(SHORT_DESCRIPTION, "Redo");
+        putValue(LONG_DESCRIPTION, "Redo the last undone patch edit");
+        putValue(MNEMONIC_KEY, KeyEvent.VK_R);
+        putValue(ACCELERATOR_KEY, KeyStroke.getKeyStroke(KeyEvent.VK_Z,
+                Toolkit.getDefaultToolkit().getMenuShortcutKeyMask() | InputEvent.SHIFT_DOWN_MASK));
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        frame.redo();
+    }
+}
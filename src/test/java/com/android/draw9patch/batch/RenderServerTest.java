@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.batch;
+
+import com.android.draw9patch.ui.PatchInfo;
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Arrays;
+
+public class RenderServerTest extends TestCase {
+    private RenderServer server;
+    private byte[] ninePatch;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new RenderServer(0, 4);
+        server.start();
+
+        BufferedImage image = new BufferedImage(6, 5, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 1; x < 5; x++) {
+            for (int y = 1; y < 4; y++) {
+                image.setRGB(x, y, 0xff336699);
+            }
+        }
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 2, PatchInfo.BLACK_TICK);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", png);
+        ninePatch = png.toByteArray();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop();
+    }
+
+    /** Sends a request and returns the status followed by the body. */
+    private Object[] request(String method, String path, byte[] body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            out.write(body);
+            out.close();
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            response.write(buffer, 0, count);
+        }
+        in.close();
+        return new Object[] { status, response.toByteArray() };
+    }
+
+    private static String text(Object[] response) throws IOException {
+        return new String((byte[]) response[1], "UTF-8");
+    }
+
+    public void testInfo() throws Exception {
+        Object[] response = request("POST", "/info", ninePatch);
+        assertEquals(200, response[0]);
+        String json = text(response);
+        assertTrue(json, json.startsWith("{\"width\":6,\"height\":5,"));
+        assertTrue(json, json.contains("\"padding\":"));
+    }
+
+    public void testBad() throws Exception {
+        Object[] response = request("POST", "/bad", ninePatch);
+        assertEquals(200, response[0]);
+        assertEquals("{\"badPatches\":[]}", text(response));
+    }
+
+    public void testRender() throws Exception {
+        Object[] response = request("POST", "/render?width=40&height=30", ninePatch);
+        assertEquals(200, response[0]);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream((byte[]) response[1]));
+        assertEquals(40, image.getWidth());
+        assertEquals(30, image.getHeight());
+        assertEquals(0xff336699, image.getRGB(20, 15));
+    }
+
+    public void testErrors() throws Exception {
+        assertEquals(400, request("POST", "/info", "not a png".getBytes("UTF-8"))[0]);
+        // a PNG signature followed by garbage makes the decoder throw
+        byte[] truncated = Arrays.copyOf(ninePatch, 40);
+        Object[] response = request("POST", "/info", truncated);
+        assertEquals(400, response[0]);
+        assertTrue(text(response), text(response).startsWith("{\"error\":"));
+
+        assertEquals(400, request("POST", "/render?width=0&height=10", ninePatch)[0]);
+        assertEquals(400, request("POST", "/render?width=8192&height=8192", ninePatch)[0]);
+        assertEquals(400, request("POST", "/render?width=10", ninePatch)[0]);
+        assertEquals(400, request("GET", "/info", null)[0]);
+        assertEquals(404, request("GET", "/info?path=/no/such/file.9.png", null)[0]);
+        assertEquals(405, request("PUT", "/info", ninePatch)[0]);
+    }
+
+    /** Sends a GET with the given Host header, which HttpURLConnection won't let us set. */
+    private int requestWithHost(String host) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                server.getAddress().getPort());
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /info?path=/no/such/file.9.png HTTP/1.1\r\nHost: " + host
+                    + "\r\nConnection: close\r\n\r\n").getBytes("US-ASCII"));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "US-ASCII"));
+            return Integer.parseInt(in.readLine().split(" ")[1]);
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void testHost() throws Exception {
+        int port = server.getAddress().getPort();
+        assertEquals(404, requestWithHost("127.0.0.1:" + port));
+        assertEquals(404, requestWithHost("LOCALHOST:" + port));
+        assertEquals(404, requestWithHost("[::1]:" + port));
+        assertEquals(404, requestWithHost("localhost"));
+        assertEquals(403, requestWithHost("attacker.example:" + port));
+        assertEquals(403, requestWithHost("127.0.0.1.attacker.example"));
+    }
+}
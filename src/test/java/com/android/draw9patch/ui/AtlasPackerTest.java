@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+
+public class AtlasPackerTest extends TestCase {
+    private static BufferedImage createNinePatch(int width, int height, int color) {
+        BufferedImage image = new BufferedImage(width + 2, height + 2,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int x = 1; x <= width; x++) {
+            for (int y = 1; y <= height; y++) {
+                image.setRGB(x, y, color);
+            }
+        }
+        // stretch the second column and row, pad the right side by one pixel
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 2, PatchInfo.BLACK_TICK);
+        for (int x = 1; x < width; x++) {
+            image.setRGB(x, height + 1, PatchInfo.BLACK_TICK);
+        }
+        return image;
+    }
+
+    public void testSprite() {
+        AtlasPacker.Sprite sprite = new AtlasPacker.Sprite("a", createNinePatch(4, 3, 0xff00ff00));
+        assertEquals(4, sprite.width);
+        assertEquals(3, sprite.height);
+        assertEquals(0xff00ff00, sprite.content.getRGB(0, 0));
+        assertTrue(Arrays.equals(new int[] { 1, 2 }, sprite.stretchX));
+        assertTrue(Arrays.equals(new int[] { 1, 2 }, sprite.stretchY));
+        assertEquals(0, sprite.padding.left);
+        assertEquals(1, sprite.padding.right);
+    }
+
+    public void testPack() {
+        AtlasPacker.Sprite a = new AtlasPacker.Sprite("a", createNinePatch(6, 4, 0xffff0000));
+        AtlasPacker.Sprite b = new AtlasPacker.Sprite("b", createNinePatch(3, 2, 0xff00ff00));
+        AtlasPacker.Sprite c = new AtlasPacker.Sprite("c", createNinePatch(8, 3, 0xff0000ff));
+        AtlasPacker.Sprite d = new AtlasPacker.Sprite("d", createNinePatch(8, 8, 0xff000000));
+
+        List<AtlasPacker.Page> pages = new AtlasPacker(10, 1).pack(Arrays.asList(a, b, c, d));
+        assertEquals(2, pages.size());
+
+        // tallest first: d fills the first page, a and b share a shelf, c goes below
+        assertEquals(0, d.getPage());
+        assertEquals(1, a.getPage());
+        assertEquals(0, a.getX());
+        assertEquals(0, a.getY());
+        assertEquals(1, b.getPage());
+        assertEquals(7, b.getX());
+        assertEquals(0, b.getY());
+        assertEquals(1, c.getPage());
+        assertEquals(0, c.getX());
+        assertEquals(5, c.getY());
+
+        AtlasPacker.Page page = pages.get(1);
+        assertEquals(10, page.getWidth());
+        assertEquals(8, page.getHeight());
+        BufferedImage image = page.render();
+        assertEquals(0xffff0000, image.getRGB(5, 3));
+        // spacing of 1 holds the right edge of a
+        assertEquals(0xffff0000, image.getRGB(6, 0));
+        assertEquals(0xff00ff00, image.getRGB(9, 1));
+        assertEquals(0xff0000ff, image.getRGB(7, 7));
+    }
+
+    public void testExtrude() {
+        AtlasPacker.Sprite a = new AtlasPacker.Sprite("a", createNinePatch(3, 3, 0xffff0000));
+        AtlasPacker.Sprite b = new AtlasPacker.Sprite("b", createNinePatch(3, 3, 0xff00ff00));
+        AtlasPacker.Sprite c = new AtlasPacker.Sprite("c", createNinePatch(3, 2, 0xff0000ff));
+        List<AtlasPacker.Page> pages = new AtlasPacker(9, 2).pack(Arrays.asList(a, b, c));
+        assertEquals(1, pages.size());
+        assertEquals(5, b.getX());
+        assertEquals(5, c.getY());
+
+        // a gutter of 2 is split between the sprites on either side, corners included
+        BufferedImage image = pages.get(0).render();
+        assertEquals(0xffff0000, image.getRGB(3, 1));
+        assertEquals(0xff00ff00, image.getRGB(4, 1));
+        assertEquals(0xffff0000, image.getRGB(3, 3));
+        assertEquals(0xff0000ff, image.getRGB(3, 4));
+        assertEquals(0xff0000ff, image.getRGB(0, 4));
+        assertEquals(0xff00ff00, image.getRGB(4, 3));
+    }
+
+    public void testTranslucentPixels() {
+        AtlasPacker.Sprite sprite = new AtlasPacker.Sprite("a",
+                createNinePatch(3, 3, 0x03804020));
+        BufferedImage image = new AtlasPacker(8, 2).pack(Arrays.asList(sprite)).get(0).render();
+        assertEquals(0x03804020, image.getRGB(0, 0));
+        assertEquals(0x03804020, image.getRGB(2, 2));
+    }
+
+    public void testTooLarge() {
+        AtlasPacker packer = new AtlasPacker(4, 0);
+        AtlasPacker.Sprite sprite = new AtlasPacker.Sprite("a", createNinePatch(5, 2, 0));
+        assertFalse(packer.fits(sprite));
+        try {
+            packer.pack(Arrays.asList(sprite));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+
+public class BorderTransactionTest extends TestCase {
+    public void testBufferedUntilApplied() {
+        BufferedImage image = new BufferedImage(6, 5, BufferedImage.TYPE_INT_ARGB);
+        BorderTransaction edit = new BorderTransaction(image);
+        assertFalse(edit.hasChanges());
+
+        edit.fill(1, 0, 3, 0, PatchInfo.BLACK_TICK);
+        edit.set(0, 2, PatchInfo.BLACK_TICK);
+        edit.set(5, 4, PatchInfo.RED_TICK);
+        assertTrue(edit.hasChanges());
+        assertEquals(PatchInfo.BLACK_TICK, edit.get(2, 0));
+        assertEquals(0, image.getRGB(2, 0));
+
+        assertTrue(edit.apply());
+        assertFalse(edit.hasChanges());
+        assertEquals(0, image.getRGB(0, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(1, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(3, 0));
+        assertEquals(0, image.getRGB(4, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(0, 2));
+        // corners are shared by two sides
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(5, 4));
+        assertEquals(PatchInfo.RED_TICK, edit.get(5, 4));
+
+        // writing the same colors again is not a change
+        edit.fill(1, 0, 3, 0, PatchInfo.BLACK_TICK);
+        assertFalse(edit.apply());
+    }
+
+    public void testWritesOnlyChangedSpan() {
+        BufferedImage image = new BufferedImage(8, 5, BufferedImage.TYPE_INT_ARGB);
+        BorderTransaction edit = new BorderTransaction(image);
+        edit.set(2, 0, PatchInfo.BLACK_TICK);
+        edit.set(4, 0, PatchInfo.BLACK_TICK);
+        assertEquals(0, edit.get(6, 0));
+
+        // pixels outside of the changed span are not overwritten
+        image.setRGB(1, 0, PatchInfo.RED_TICK);
+        image.setRGB(6, 0, PatchInfo.RED_TICK);
+        assertTrue(edit.apply());
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(1, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(2, 0));
+        assertEquals(0, image.getRGB(3, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(4, 0));
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(6, 0));
+    }
+
+    public void testInterior() {
+        BorderTransaction edit = new BorderTransaction(
+                new BufferedImage(6, 5, BufferedImage.TYPE_INT_ARGB));
+        try {
+            edit.set(2, 2, PatchInfo.BLACK_TICK);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            edit.fill(0, 0, 5, 4, PatchInfo.BLACK_TICK);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+public class MipmapPyramidTest extends TestCase {
+    public void testLevels() {
+        BufferedImage image = new BufferedImage(300, 5, BufferedImage.TYPE_INT_ARGB);
+        MipmapPyramid pyramid = new MipmapPyramid(image);
+
+        // 300x5, 150x3, 75x2, 38x1, 19x1, 10x1, 5x1, 3x1, 2x1, 1x1
+        assertEquals(10, pyramid.getLevelCount());
+        assertSame(image, pyramid.getLevel(0));
+        assertEquals(38, pyramid.getLevel(3).getWidth());
+        assertEquals(1, pyramid.getLevel(3).getHeight());
+
+        assertEquals(0, pyramid.getLevelFor(2.0f));
+        assertEquals(0, pyramid.getLevelFor(0.75f));
+        assertEquals(1, pyramid.getLevelFor(0.5f));
+        assertEquals(3, pyramid.getLevelFor(0.125f));
+        assertEquals(9, pyramid.getLevelFor(0.0001f));
+    }
+
+    public void testAverage() {
+        // transparent pixels do not darken their neighbours
+        assertEquals(0x7fff0000, MipmapPyramid.average(0xffff0000, 0, 0xffff0000, 0));
+        assertEquals(0, MipmapPyramid.average(0, 0, 0, 0));
+        assertEquals(0xff7f7f7f, MipmapPyramid.average(0xffffffff, 0xff000000,
+                0xff000000, 0xffffffff));
+    }
+
+    public void testInvalidate() {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+        MipmapPyramid pyramid = new MipmapPyramid(image);
+        assertEquals(0, pyramid.getLevel(2).getRGB(0, 0));
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                image.setRGB(x, y, 0xff00ff00);
+                image.setRGB(508 + x, 508 + y, 0xff00ff00);
+            }
+        }
+
+        // only the invalidated corner is rebuilt
+        pyramid.invalidate(new Rectangle(0, 0, 4, 4));
+        assertEquals(0xff00ff00, pyramid.getLevel(2).getRGB(0, 0));
+        assertEquals(0, pyramid.getLevel(2).getRGB(127, 127));
+
+        pyramid.invalidate(new Rectangle(508, 508, 4, 4));
+        assertEquals(0xff00ff00, pyramid.getLevel(2).getRGB(127, 127));
+    }
+}
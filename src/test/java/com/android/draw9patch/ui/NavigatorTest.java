@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+public class NavigatorTest extends TestCase {
+    public void testPreview() {
+        BufferedImage image = new BufferedImage(400, 100, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 100; y++) {
+                image.setRGB(x, y, 0xff0000ff);
+            }
+        }
+
+        Navigator.Preview preview = new Navigator.Preview(image, 100, 100);
+        assertEquals(100, preview.width);
+        assertEquals(25, preview.height);
+        assertEquals(0xff0000ff, preview.image.getRGB(0, 0));
+        assertEquals(0xff0000ff, preview.image.getRGB(49, 24));
+        assertEquals(0, preview.image.getRGB(50, 0));
+
+        // each preview pixel averages a 4x4 block
+        image.setRGB(399, 0, 0xffff0000);
+        image.setRGB(398, 0, 0xffff0000);
+        preview.update(new Rectangle(398, 0, 2, 1));
+        assertEquals(0x1fff0000, preview.image.getRGB(99, 0));
+        assertEquals(0, preview.image.getRGB(99, 1));
+    }
+
+    public void testSmallImage() {
+        BufferedImage image = new BufferedImage(5, 3, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(2, 1, 0xff00ff00);
+
+        // images that fit are not scaled up
+        Navigator.Preview preview = new Navigator.Preview(image, 100, 100);
+        assertEquals(5, preview.width);
+        assertEquals(3, preview.height);
+        assertEquals(0xff00ff00, preview.image.getRGB(2, 1));
+        assertEquals(0, preview.image.getRGB(1, 1));
+    }
+}
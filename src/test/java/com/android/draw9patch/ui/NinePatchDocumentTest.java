@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+
+public class NinePatchDocumentTest extends TestCase {
+    public void testSnapshotIsolation() {
+        BufferedImage image = new BufferedImage(5, 5, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 2, PatchInfo.BLACK_TICK);
+        image.setRGB(2, 2, 0xff00ff00);
+        NinePatchDocument document = new NinePatchDocument(image, new PatchInfo(image));
+        NinePatchDocument.Snapshot before = document.getSnapshot();
+
+        // edits of the live image after publishing are not visible in the snapshot
+        image.setRGB(1, 0, PatchInfo.BLACK_TICK);
+        document.publish(image, new PatchInfo(image));
+        NinePatchDocument.Snapshot after = document.getSnapshot();
+
+        assertEquals(before.version + 1, after.version);
+        assertEquals(before.contentVersion, after.contentVersion);
+        assertEquals(0, before.getImage().getRGB(1, 0));
+        assertEquals(0xff00ff00, before.getImage().getRGB(2, 2));
+        assertEquals(PatchInfo.BLACK_TICK, after.getImage().getRGB(1, 0));
+        assertSame(after.getImage(), after.getImage());
+        assertEquals(1, before.patchInfo.horizontalPatchMarkers.size());
+        Pair<Integer> patch = after.patchInfo.horizontalPatchMarkers.get(0);
+        assertEquals(1, patch.first.intValue());
+        assertEquals(3, patch.second.intValue());
+
+        // the snapshots never read the live image, even for pixels inside the border
+        image.setRGB(2, 2, 0xffff0000);
+        assertEquals(0xff00ff00, after.getImage().getRGB(2, 2));
+
+        document.publish(new BufferedImage(5, 5, BufferedImage.TYPE_INT_ARGB),
+                after.patchInfo);
+        assertEquals(after.contentVersion + 1, document.getSnapshot().contentVersion);
+    }
+
+    public void testSnapshotIsExact() {
+        BufferedImage image = new BufferedImage(5, 5, BufferedImage.TYPE_4BYTE_ABGR);
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(2, 2, 0x03804020);
+        NinePatchDocument document = new NinePatchDocument(image, new PatchInfo(image));
+        BufferedImage copy = document.getSnapshot().getImage();
+        assertEquals(BufferedImage.TYPE_4BYTE_ABGR, copy.getType());
+        assertEquals(0x03804020, copy.getRGB(2, 2));
+        assertEquals(PatchInfo.BLACK_TICK, copy.getRGB(2, 0));
+
+        // paletted images keep their palette
+        BufferedImage paletted = ImageEditorPanel.convertTo9Patch(new BufferedImage(3, 3,
+                BufferedImage.TYPE_BYTE_INDEXED, new IndexColorModel(8, 2,
+                        new int[] { 0x40336699, 0xff000000 }, 0, true, -1,
+                        DataBuffer.TYPE_BYTE)));
+        document.publish(paletted, new PatchInfo(paletted));
+        copy = document.getSnapshot().getImage();
+        assertSame(paletted.getColorModel(), copy.getColorModel());
+        assertEquals(0x40336699, copy.getRGB(2, 2));
+    }
+}
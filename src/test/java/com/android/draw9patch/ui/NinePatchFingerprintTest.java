@@ -0,0 +1,78 @@
+/*
+ *
+ *  Copyright (C) 2013 The Android Open Source Project
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+
+public class NinePatchFingerprintTest extends TestCase {
+    public void testSameArtDifferentEncoding() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "  *  ",
+                " abc*",
+                "*def ",
+                "  ** ",
+        });
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_4BYTE_ABGR);
+        copy.getGraphics().drawImage(image, 0, 0, null);
+        // invisible color of a transparent pixel
+        copy.setRGB(4, 3, 0x00FFFFFF);
+
+        NinePatchFingerprint a = NinePatchFingerprint.compute(image);
+        NinePatchFingerprint b = NinePatchFingerprint.compute(copy);
+        assertEquals(a.contentHash, b.contentHash);
+        assertEquals(a.borderHash, b.borderHash);
+    }
+
+    public void testSameArtDifferentPatches() {
+        NinePatchFingerprint a = NinePatchFingerprint.compute(TestImages.createImage(new String[] {
+                "  *  ",
+                " abc ",
+                "*def ",
+                "     ",
+        }));
+        NinePatchFingerprint b = NinePatchFingerprint.compute(TestImages.createImage(new String[] {
+                "   * ",
+                " abc ",
+                "*def ",
+                "     ",
+        }));
+        assertEquals(a.contentHash, b.contentHash);
+        assertFalse(a.borderHash.equals(b.borderHash));
+    }
+
+    public void testDifferentArt() {
+        NinePatchFingerprint a = NinePatchFingerprint.compute(TestImages.createImage(new String[] {
+                "  *  ",
+                " abc ",
+                "*def ",
+                "     ",
+        }));
+        NinePatchFingerprint b = NinePatchFingerprint.compute(TestImages.createImage(new String[] {
+                "  *  ",
+                " abc ",
+                "*deg ",
+                "     ",
+        }));
+        assertFalse(a.contentHash.equals(b.contentHash));
+        assertEquals(a.borderHash, b.borderHash);
+    }
+}
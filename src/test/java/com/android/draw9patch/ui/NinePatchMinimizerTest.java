@@ -0,0 +1,91 @@
+/*
+ *
+ *  Copyright (C) 2013 The Android Open Source Project
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+public class NinePatchMinimizerTest extends TestCase {
+    public void testMinimize() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "  ****  ",
+                " abbbbc*",
+                "*deeeef*",
+                "*deeeef*",
+                "*deeeef*",
+                " ghhhhi ",
+                " ****** ",
+        });
+
+        NinePatchMinimizer.Result result = NinePatchMinimizer.minimize(image);
+        assertEquals(3, result.removedColumns);
+        assertEquals(2, result.removedRows);
+
+        BufferedImage minimized = result.image;
+        assertEquals(5, minimized.getWidth());
+        assertEquals(5, minimized.getHeight());
+
+        PatchInfo pi = new PatchInfo(minimized);
+        assertEquals(1, pi.patches.size());
+        assertEquals(new Rectangle(2, 2, 1, 1), pi.patches.get(0));
+        assertTrue(CorruptPatch.findBadPatches(minimized, pi).isEmpty());
+
+        // paddings are measured from the edges and must not change
+        PatchInfo original = new PatchInfo(image);
+        assertEquals(original.horizontalPadding.first, pi.horizontalPadding.first);
+        assertEquals(original.horizontalPadding.second, pi.horizontalPadding.second);
+        assertEquals(original.verticalPadding.first, pi.verticalPadding.first);
+        assertEquals(original.verticalPadding.second, pi.verticalPadding.second);
+    }
+
+    public void testMinimizeKeepsPaddingBoundaries() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                " ***** ",
+                " aaaaa ",
+                "*aaaaa ",
+                " aaaaa ",
+                "   **  ",
+        });
+
+        NinePatchMinimizer.Result result = NinePatchMinimizer.minimize(image);
+
+        // only the column inside the content area, after its first column, can go
+        assertEquals(1, result.removedColumns);
+        PatchInfo original = new PatchInfo(image);
+        PatchInfo pi = new PatchInfo(result.image);
+        assertEquals(original.horizontalPadding.first, pi.horizontalPadding.first);
+        assertEquals(original.horizontalPadding.second, pi.horizontalPadding.second);
+    }
+
+    public void testMinimizeNonUniformPatch() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "  **  ",
+                " abcd ",
+                "*efgh ",
+                "      ",
+        });
+
+        NinePatchMinimizer.Result result = NinePatchMinimizer.minimize(image);
+        assertSame(image, result.image);
+        assertEquals(0, result.removedColumns);
+        assertEquals(0, result.removedRows);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+public class NinePatchStretcherTest extends TestCase {
+    private static BufferedImage createImage(String top, int height) {
+        BufferedImage image = new BufferedImage(top.length(), height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < top.length(); x++) {
+            if (top.charAt(x) == '*') {
+                image.setRGB(x, 0, PatchInfo.BLACK_TICK);
+            }
+        }
+        return image;
+    }
+
+    public void testLayout() {
+        // fixed 1-2, stretch 3-4, fixed 5, stretch 6, fixed 7-8
+        BufferedImage image = createImage("0..**.*..9", 3);
+        NinePatchStretcher.Axis axis = new NinePatchStretcher.Axis(
+                new PatchInfo(image).horizontalPatchMarkers, image.getWidth());
+        assertTrue(Arrays.equals(new int[] { 1, 3, 5, 6, 7, 9 }, axis.stops));
+
+        // the extra 12 pixels are shared 2:1 between the stretches
+        assertTrue(Arrays.equals(new int[] { 0, 2, 12, 13, 19, 21 }, axis.layout(21)));
+
+        // unchanged at the natural size
+        assertTrue(Arrays.equals(new int[] { 0, 2, 4, 5, 6, 8 }, axis.layout(8)));
+
+        // smaller than the fixed regions, which are scaled down
+        assertTrue(Arrays.equals(new int[] { 0, 1, 1, 1, 1, 3 }, axis.layout(3)));
+    }
+
+    public void testRender() {
+        BufferedImage image = createImage("0*.9", 3);
+        image.setRGB(1, 1, 0xffff0000);
+        image.setRGB(2, 1, 0xff0000ff);
+
+        // no markers on the left, the whole height stretches
+        BufferedImage result = new NinePatchStretcher(image).render(10, 4);
+        assertEquals(10, result.getWidth());
+        assertEquals(4, result.getHeight());
+        assertEquals(0xffff0000, result.getRGB(0, 0));
+        assertEquals(0xffff0000, result.getRGB(8, 3));
+        assertEquals(0xff0000ff, result.getRGB(9, 3));
+    }
+
+    public void testParseSizes() {
+        assertTrue(Arrays.equals(new int[] { 48, 96, 200 }, SizeMatrix.parseSizes("48, 96 200")));
+        try {
+            SizeMatrix.parseSizes("48,-1");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
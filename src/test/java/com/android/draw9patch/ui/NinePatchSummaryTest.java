@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+
+public class NinePatchSummaryTest extends TestCase {
+    public void testCompute() {
+        BufferedImage image = new BufferedImage(8, 6, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 1; x < 7; x++) {
+            for (int y = 1; y < 5; y++) {
+                image.setRGB(x, y, 0xff336699);
+            }
+        }
+        // two stretchable columns of different colors, one stretchable row
+        image.setRGB(3, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(4, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 2, PatchInfo.BLACK_TICK);
+        for (int y = 1; y < 5; y++) {
+            image.setRGB(4, y, 0xffff0000);
+        }
+
+        NinePatchSummary summary = NinePatchSummary.compute(image);
+        assertEquals(8, summary.width);
+        assertEquals(6, summary.height);
+        assertEquals(1, summary.patches);
+        assertEquals(2, summary.horizontalPatches);
+        assertEquals(2, summary.verticalPatches);
+        // the columns are not uniform in the patch and the two horizontal patches
+        assertEquals(3, summary.badPatches);
+    }
+
+    public void testStoreAndLoad() {
+        NinePatchSummary summary = new NinePatchSummary(10, 12, 1, 2, 3, 4);
+        Properties properties = new Properties();
+        summary.store(properties);
+        NinePatchSummary loaded = NinePatchSummary.load(properties);
+        assertEquals(10, loaded.width);
+        assertEquals(12, loaded.height);
+        assertEquals(1, loaded.patches);
+        assertEquals(2, loaded.horizontalPatches);
+        assertEquals(3, loaded.verticalPatches);
+        assertEquals(4, loaded.badPatches);
+
+        properties.remove("badPatches");
+        assertNull(NinePatchSummary.load(properties));
+    }
+}
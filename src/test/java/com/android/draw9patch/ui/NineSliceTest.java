@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+
+public class NineSliceTest extends TestCase {
+    public void testCapInsets() {
+        // 10x6 content, stretching columns 3-6 and row 2
+        BufferedImage image = new BufferedImage(12, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 4; x <= 7; x++) {
+            image.setRGB(x, 0, PatchInfo.BLACK_TICK);
+        }
+        image.setRGB(0, 3, PatchInfo.BLACK_TICK);
+        for (int x = 2; x <= 9; x++) {
+            image.setRGB(x, 7, PatchInfo.BLACK_TICK);
+        }
+
+        NineSlice slice = NineSlice.compute(image);
+        assertEquals(10, slice.content.getWidth());
+        assertEquals(6, slice.content.getHeight());
+        assertEquals(2, slice.capInsets.top);
+        assertEquals(3, slice.capInsets.left);
+        assertEquals(3, slice.capInsets.bottom);
+        assertEquals(3, slice.capInsets.right);
+        assertEquals("2 3 3 3 fill", slice.getBorderImageSlice());
+        assertEquals(1, slice.padding.left);
+        assertEquals(1, slice.padding.right);
+    }
+
+    public void testMultiplePatches() {
+        BufferedImage image = new BufferedImage(8, 5, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(5, 0, PatchInfo.BLACK_TICK);
+        try {
+            NineSlice.compute(image);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
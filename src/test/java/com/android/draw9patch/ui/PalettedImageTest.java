@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import com.android.draw9patch.graphics.GraphicsUtilities;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+
+public class PalettedImageTest extends TestCase {
+    private static BufferedImage createPaletted() {
+        // transparent white first, so that the transparent marker color has to be added
+        int[] palette = { 0x00ffffff, 0xff336699, 0x80ff8000, 0xff000000 };
+        IndexColorModel colorModel = new IndexColorModel(2, palette.length, palette, 0, true, -1,
+                DataBuffer.TYPE_BYTE);
+        BufferedImage image = new BufferedImage(6, 4, BufferedImage.TYPE_BYTE_BINARY,
+                colorModel);
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 4; y++) {
+                image.getRaster().setSample(x, y, 0, x < 3 ? 1 : 2);
+            }
+        }
+        return image;
+    }
+
+    public void testConvertTo9Patch() {
+        BufferedImage image = ImageEditorPanel.convertTo9Patch(createPaletted());
+        assertTrue(GraphicsUtilities.isPaletted(image));
+        assertEquals(8, image.getWidth());
+        assertEquals(6, image.getHeight());
+        assertEquals(0, image.getRGB(0, 0));
+        assertEquals(0xff336699, image.getRGB(1, 1));
+        assertEquals(0x80ff8000, image.getRGB(6, 4));
+
+        // markers are exact, not the closest palette color
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 2, PatchInfo.BLACK_TICK);
+        image.setRGB(7, 1, PatchInfo.RED_TICK);
+        int[] row = GraphicsUtilities.getPixels(image, 0, 0, 8, 1, null);
+        assertEquals(0, row[1]);
+        assertEquals(PatchInfo.BLACK_TICK, row[2]);
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(7, 1));
+
+        PatchInfo patchInfo = new PatchInfo(image);
+        assertEquals(1, patchInfo.horizontalPatchMarkers.size());
+        assertEquals(1, patchInfo.layoutBounds.top);
+        assertTrue(CorruptPatch.findBadPatches(image, patchInfo).isEmpty());
+    }
+
+    public void testGetPixels() {
+        BufferedImage indexed = ImageEditorPanel.convertTo9Patch(createPaletted());
+        BufferedImage packed = new BufferedImage(7, 3, BufferedImage.TYPE_BYTE_BINARY,
+                new IndexColorModel(2, 4, new int[] { 0, 0xff000000, 0xffff0000, 0x80ffffff },
+                        0, true, 0, DataBuffer.TYPE_BYTE));
+        packed.setRGB(3, 1, 0x80ffffff);
+        packed.setRGB(6, 2, PatchInfo.RED_TICK);
+
+        for (BufferedImage image : new BufferedImage[] { indexed, packed, indexed }) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] pixels = GraphicsUtilities.getPixels(image, 1, 1, width - 1, height - 1, null);
+            for (int y = 1; y < height; y++) {
+                for (int x = 1; x < width; x++) {
+                    assertEquals(image.getRGB(x, y), pixels[(y - 1) * (width - 1) + x - 1]);
+                }
+            }
+        }
+    }
+
+    public void testFullPalette() {
+        int[] palette = new int[256];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = 0xff000000 | (i << 8);
+        }
+        IndexColorModel colorModel = new IndexColorModel(8, palette.length, palette, 0, true, -1,
+                DataBuffer.TYPE_BYTE);
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_INDEXED,
+                colorModel);
+
+        // black is there but not red nor transparent: falls back to ARGB
+        assertNull(GraphicsUtilities.createIndexedImage(image, 6, 6));
+        assertFalse(GraphicsUtilities.isPaletted(ImageEditorPanel.convertTo9Patch(image)));
+    }
+
+    public void testToArgbIsExact() {
+        BufferedImage abgr = new BufferedImage(3, 1, BufferedImage.TYPE_4BYTE_ABGR);
+        abgr.setRGB(0, 0, 0x03804020);
+        abgr.setRGB(1, 0, PatchInfo.RED_TICK);
+        abgr.setRGB(2, 0, 0x40336699);
+        BufferedImage paletted = createPaletted();
+
+        for (BufferedImage image : new BufferedImage[] { abgr, paletted }) {
+            BufferedImage argb = GraphicsUtilities.toArgb(image);
+            assertEquals(BufferedImage.TYPE_INT_ARGB, argb.getType());
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    assertEquals(image.getRGB(x, y), argb.getRGB(x, y));
+                }
+            }
+        }
+        assertEquals(0x03804020, GraphicsUtilities.toArgb(abgr).getRGB(0, 0));
+    }
+}
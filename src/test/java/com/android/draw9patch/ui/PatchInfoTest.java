@@ -20,6 +20,7 @@ package com.android.draw9patch.ui;
 
 import junit.framework.TestCase;
 
+import java.awt.Insets;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
@@ -126,4 +127,28 @@ public class PatchInfoTest extends TestCase {
         assertEquals(2, pi.verticalPatches.size());
         assertEquals(2, pi.horizontalPatches.size());
     }
+
+    public void testLayoutBounds() {
+        BufferedImage image = createImage(new String[] {
+                "0...**....",
+                "R........R",
+                "*.........",
+                "*.........",
+                ".........R",
+                "0RR....RR9",
+        });
+        PatchInfo pi = new PatchInfo(image);
+
+        // runs of red ticks from either end of the bottom row and of the left and right columns
+        assertEquals(new Insets(1, 2, 1, 2), pi.layoutBounds);
+
+        // no red ticks, no insets
+        image = createImage(new String[] {
+                "0123**6789",
+                "1........*",
+                "*........*",
+                "412*****89",
+        });
+        assertEquals(new Insets(0, 0, 0, 0), new PatchInfo(image).layoutBounds);
+    }
 }
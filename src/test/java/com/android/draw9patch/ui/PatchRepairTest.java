@@ -0,0 +1,85 @@
+/*
+ *
+ *  Copyright (C) 2013 The Android Open Source Project
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+public class PatchRepairTest extends TestCase {
+    public void testRepair() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                " ******  ",
+                "*abbccd  ",
+                "*abbccd  ",
+                "*effggh  ",
+                " ijjkkl  ",
+                "         ",
+        });
+
+        PatchInfo pi = new PatchInfo(image);
+        assertFalse(CorruptPatch.findBadPatches(image, pi).isEmpty());
+
+        List<PatchRepair.Change> changes = PatchRepair.repair(image);
+        assertEquals(2, changes.size());
+
+        // columns 1-6 shrink to the first of the two equally long runs closest to the center
+        PatchRepair.Change horizontal = changes.get(0);
+        assertTrue(horizontal.horizontal);
+        assertEquals(1, horizontal.before.first.intValue());
+        assertEquals(7, horizontal.before.second.intValue());
+        assertEquals(2, horizontal.after.second - horizontal.after.first);
+
+        // rows 1-3 shrink to rows 1-2
+        PatchRepair.Change vertical = changes.get(1);
+        assertFalse(vertical.horizontal);
+        assertEquals(1, vertical.after.first.intValue());
+        assertEquals(3, vertical.after.second.intValue());
+
+        pi = new PatchInfo(image);
+        assertTrue(CorruptPatch.findBadPatches(image, pi).isEmpty());
+    }
+
+    public void testRepairKeepsUniformPatches() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "  **  ",
+                " abbc ",
+                "*deef ",
+                " ghhi ",
+                "      ",
+        });
+
+        assertTrue(PatchRepair.repair(image).isEmpty());
+    }
+
+    public void testRepairKeepsLayoutBounds() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                " R*** ",
+                "*abcd ",
+                " efgh ",
+                "      ",
+        });
+
+        PatchRepair.repair(image);
+
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(1, 0));
+        assertTrue(CorruptPatch.findBadPatches(image, new PatchInfo(image)).isEmpty());
+    }
+}
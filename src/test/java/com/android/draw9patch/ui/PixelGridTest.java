@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+
+public class PixelGridTest extends TestCase {
+    public void testVisibility() {
+        assertFalse(PixelGrid.isVisibleAt(0.5f));
+        assertFalse(PixelGrid.isVisibleAt(2));
+        assertFalse(PixelGrid.isVisibleAt(4.5f));
+        assertTrue(PixelGrid.isVisibleAt(PixelGrid.MIN_ZOOM));
+        assertTrue(PixelGrid.isVisibleAt(ImageViewer.MAX_ZOOM));
+    }
+
+    public void testTile() {
+        BufferedImage tile = PixelGrid.createTile(10);
+        // whole cells only, so that the tile repeats seamlessly
+        assertEquals(250, tile.getWidth());
+        assertEquals(250, tile.getHeight());
+
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 20; x++) {
+                boolean line = x % 10 == 0 || y % 10 == 0;
+                assertEquals("pixel " + x + "," + y, line, tile.getRGB(x, y) != 0);
+            }
+        }
+    }
+}
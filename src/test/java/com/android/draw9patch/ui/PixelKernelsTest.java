@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Checks the kernels selected at runtime against the plain loops. */
+public class PixelKernelsTest extends TestCase {
+    private final PixelKernels kernels = PixelKernels.get();
+    private final PixelKernels scalar = new PixelKernels.Scalar();
+
+    private static int[] createRuns(Random random, int length) {
+        int[] pixels = new int[length];
+        int color = 0;
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(23) == 0) {
+                color = random.nextInt(3);
+            }
+            pixels[i] = color;
+        }
+        return pixels;
+    }
+
+    public void testRunEnd() {
+        Random random = new Random(7);
+        for (int length = 1; length < 70; length++) {
+            int[] pixels = createRuns(random, length);
+            for (int from = 0; from < length; from++) {
+                assertEquals(scalar.runEnd(pixels, from, length),
+                        kernels.runEnd(pixels, from, length));
+            }
+        }
+    }
+
+    public void testEquality() {
+        Random random = new Random(11);
+        for (int length = 0; length < 70; length++) {
+            int[] a = createRuns(random, length + 5);
+            int[] b = createRuns(random, length + 3);
+            System.arraycopy(a, 5, b, 3, length);
+            assertTrue(kernels.equals(a, 5, b, 3, length));
+            assertEquals(0, kernels.countDifferences(a, 5, b, 3, length));
+            if (length > 0) {
+                b[3 + random.nextInt(length)] ^= 1;
+                assertFalse(kernels.equals(a, 5, b, 3, length));
+                assertEquals(1, kernels.countDifferences(a, 5, b, 3, length));
+            }
+
+            int[] c = createRuns(random, length + 5);
+            assertEquals(scalar.countDifferences(a, 0, c, 2, length),
+                    kernels.countDifferences(a, 0, c, 2, length));
+        }
+    }
+
+    public void testNeighbourDifferences() {
+        Random random = new Random(13);
+        for (int length = 1; length < 70; length++) {
+            int[] pixels = createRuns(random, length + 2);
+            int[] expected = new int[length];
+            int[] actual = new int[length];
+            for (int pass = 0; pass < 2; pass++) {
+                scalar.addNeighbourDifferences(pixels, 2, length, expected);
+                kernels.addNeighbourDifferences(pixels, 2, length, actual);
+            }
+            assertTrue(Arrays.equals(expected, actual));
+        }
+    }
+}
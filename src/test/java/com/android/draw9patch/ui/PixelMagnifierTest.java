@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+public class PixelMagnifierTest extends TestCase {
+    private static final int LIGHT = 0xffffffff;
+    private static final int DARK = 0xffcccccc;
+    private static final int OPAQUE = 0xff123456;
+    private static final int HALF = 0x80000000;
+
+    private static BufferedImage createChecker() {
+        BufferedImage checker = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+        checker.setRGB(0, 0, LIGHT);
+        checker.setRGB(1, 0, DARK);
+        checker.setRGB(0, 1, DARK);
+        checker.setRGB(1, 1, LIGHT);
+        return checker;
+    }
+
+    public void testMagnify() {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, OPAQUE);
+        image.setRGB(1, 0, 0);
+        image.setRGB(2, 0, HALF);
+        image.setRGB(0, 1, 0);
+        image.setRGB(1, 1, OPAQUE);
+        image.setRGB(2, 1, OPAQUE);
+
+        PixelMagnifier magnifier = new PixelMagnifier(createChecker());
+        BufferedImage out = magnifier.magnify(image, 4, new Rectangle(0, 0, 12, 8));
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 12; x++) {
+                int back = (x + y) % 2 == 0 ? LIGHT : DARK;
+                int argb = image.getRGB(x / 4, y / 4);
+                int expected = argb == OPAQUE ? OPAQUE
+                        : argb == 0 ? back : PixelMagnifier.blend(argb, 0x80, back);
+                assertEquals("pixel " + x + "," + y, expected, out.getRGB(x, y));
+            }
+        }
+    }
+
+    public void testMagnifyRegion() {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(2, 1, OPAQUE);
+
+        PixelMagnifier magnifier = new PixelMagnifier(createChecker());
+        // a region that starts and ends in the middle of zoomed pixels
+        BufferedImage out = magnifier.magnify(image, 3, new Rectangle(5, 2, 5, 4));
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 5; x++) {
+                int dx = x + 5;
+                int dy = y + 2;
+                int expected = dx / 3 == 2 && dy / 3 == 1 ? OPAQUE
+                        : (dx + dy) % 2 == 0 ? LIGHT : DARK;
+                assertEquals("pixel " + dx + "," + dy, expected, out.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class PngOptimizerTest extends TestCase {
+    public void testIndexed() throws Exception {
+        int[] colors = { 0x80336699, 0xffffffff, 0xff102030, 0x40000000 };
+        BufferedImage image = new BufferedImage(200, 120, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int x = 1; x < 199; x++) {
+            for (int y = 1; y < 119; y++) {
+                image.setRGB(x, y, colors[random.nextInt(colors.length)]);
+            }
+        }
+        image.setRGB(5, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 5, PatchInfo.BLACK_TICK);
+        image.setRGB(199, 20, PatchInfo.RED_TICK);
+
+        PngOptimizer.Encoding encoding = PngOptimizer.optimize(image, false);
+        assertEquals(PngOptimizer.PNG, encoding.format);
+        assertTrue(encoding.description, encoding.description.startsWith("indexed 4-bit"));
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoding.data));
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 120; y++) {
+                assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+            }
+        }
+    }
+
+    public void testTranslucentGradient() throws Exception {
+        // more than 256 colors, all of them nearly transparent
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_4BYTE_ABGR);
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 40; y++) {
+                image.setRGB(x, y, (1 + (x + y) % 7) << 24 | (x * 6) << 16 | (y * 6) << 8 | 0x20);
+            }
+        }
+
+        PngOptimizer.Encoding encoding = PngOptimizer.optimize(image, false);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoding.data));
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 40; y++) {
+                assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+            }
+        }
+    }
+
+    public void testTooManyColors() throws Exception {
+        int[] pixels = new int[300];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | i;
+        }
+        assertNull(PngOptimizer.toPalette(pixels));
+        assertEquals(8, PngOptimizer.toPalette(Arrays.copyOf(pixels, 17)).bits);
+        assertEquals(2, PngOptimizer.toPalette(new int[] { 0, 1, 2, 2 }).bits);
+
+        BufferedImage image = new BufferedImage(30, 10, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 30, 10, pixels, 0, 30);
+        assertTrue(PngOptimizer.optimize(image, false).description.startsWith("rgba"));
+    }
+
+    public void testGrayscaleRefused() throws Exception {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_GRAY);
+        image.getRaster().setSample(1, 1, 0, 128);
+        try {
+            PngOptimizer.optimize(image, false);
+            fail("grayscale images must not be re-encoded through sRGB");
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testColorChunks() throws Exception {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        byte[] plain = out.toByteArray();
+        assertFalse(PngOptimizer.hasColorChunks(plain));
+
+        // IHDR is 8 + 13 + 4 bytes after the signature, insert a gAMA chunk right after it
+        byte[] gama = { 0, 0, 0, 4, 'g', 'A', 'M', 'A', 0, 0, (byte) 0xb1, (byte) 0x8f, 0, 0, 0, 0 };
+        byte[] tagged = new byte[plain.length + gama.length];
+        System.arraycopy(plain, 0, tagged, 0, 33);
+        System.arraycopy(gama, 0, tagged, 33, gama.length);
+        System.arraycopy(plain, 33, tagged, 33 + gama.length, plain.length - 33);
+        assertTrue(PngOptimizer.hasColorChunks(tagged));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ *  Copyright (C) 2013 The Android Open Source Project
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.List;
+
+public class StretchInferenceTest extends TestCase {
+    public void testUniformRuns() {
+        List<Pair<Integer>> runs = UniformityScan.uniformRuns(new int[] { 0, 0, 3, 0, 0, 1 });
+        assertEquals(3, runs.size());
+        assertEquals(0, runs.get(0).first.intValue());
+        assertEquals(2, runs.get(0).second.intValue());
+        assertEquals(2, runs.get(1).first.intValue());
+        assertEquals(5, runs.get(1).second.intValue());
+        assertEquals(5, runs.get(2).first.intValue());
+        assertEquals(6, runs.get(2).second.intValue());
+    }
+
+    public void testInfer() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "         ",
+                " abbbbbc ",
+                " deeeeef ",
+                " deeeeef ",
+                " ghhhhhi ",
+                "         ",
+        });
+
+        StretchInference.Suggestion suggestion = StretchInference.infer(image);
+
+        // columns 2 to 6 are identical
+        assertEquals(2, suggestion.horizontal.first.intValue());
+        assertEquals(7, suggestion.horizontal.second.intValue());
+
+        // rows 2 and 3 are identical
+        assertEquals(2, suggestion.vertical.first.intValue());
+        assertEquals(4, suggestion.vertical.second.intValue());
+
+        StretchInference.apply(image, suggestion);
+        PatchInfo pi = new PatchInfo(image);
+        assertEquals(1, pi.patches.size());
+        assertEquals(new Rectangle(2, 2, 5, 2), pi.patches.get(0));
+        assertTrue(CorruptPatch.findBadPatches(image, pi).isEmpty());
+    }
+
+    public void testInferPrefersCenterOnTies() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                "       ",
+                " abcde ",
+                "       ",
+        });
+
+        StretchInference.Suggestion suggestion = StretchInference.infer(image);
+        assertEquals(3, suggestion.horizontal.first.intValue());
+        assertEquals(4, suggestion.horizontal.second.intValue());
+    }
+
+    public void testApplyKeepsLayoutBounds() {
+        BufferedImage image = TestImages.createImage(new String[] {
+                " RR*R ",
+                "R    .",
+                "*    .",
+                " .... ",
+        });
+
+        StretchInference.Suggestion suggestion = new StretchInference.Suggestion(
+                new Pair<Integer>(1, 2), new Pair<Integer>(1, 2));
+        StretchInference.apply(image, suggestion);
+
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(1, 0));
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(2, 0));
+        assertEquals(0, image.getRGB(3, 0));
+        assertEquals(PatchInfo.RED_TICK, image.getRGB(4, 0));
+        assertEquals(PatchInfo.BLACK_TICK, image.getRGB(0, 1));
+        assertEquals(0, image.getRGB(0, 2));
+    }
+
+    public void testParallelScanMatchesSerialScan() {
+        int width = 600;
+        int height = 500;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = (x / 7) * 31 + (y / 5) * 17;
+            }
+        }
+
+        UniformityScan scan = new UniformityScan(pixels, width);
+        Rectangle large = new Rectangle(1, 1, width - 2, height - 2);
+        int[] columns = scan.columnDifferences(large);
+        int[] rows = scan.rowDifferences(large);
+
+        for (int x = 1; x < columns.length; x++) {
+            boolean edge = (large.x + x) % 7 == 0;
+            assertEquals(edge ? large.height : 0, columns[x]);
+        }
+        for (int y = 1; y < rows.length; y++) {
+            boolean edge = (large.y + y) % 5 == 0;
+            assertEquals(edge ? large.width : 0, rows[y]);
+        }
+        assertEquals(0, columns[0]);
+        assertEquals(0, rows[0]);
+
+        // sprinkle noise and check the banded scan against plain loops
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            pixels[random.nextInt(pixels.length)] = random.nextInt(4);
+        }
+        scan = new UniformityScan(pixels, width);
+        int[] expectedColumns = new int[large.width];
+        int[] expectedRows = new int[large.height];
+        for (int y = large.y; y < large.y + large.height; y++) {
+            for (int x = large.x; x < large.x + large.width; x++) {
+                int pixel = pixels[y * width + x];
+                if (x > large.x && pixel != pixels[y * width + x - 1]) {
+                    expectedColumns[x - large.x]++;
+                }
+                if (y > large.y && pixel != pixels[(y - 1) * width + x]) {
+                    expectedRows[y - large.y]++;
+                }
+            }
+        }
+        assertTrue(Arrays.equals(expectedColumns, scan.columnDifferences(large)));
+        assertTrue(Arrays.equals(expectedRows, scan.rowDifferences(large)));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.draw9patch.ui;
+
+import java.awt.image.BufferedImage;
+
+/** Images for the tests, drawn as text. */
+final class TestImages {
+    private TestImages() {
+    }
+
+    /**
+     * Creates an ARGB image with one pixel per character: '*' is a patch marker, 'R' a layout
+     * bound marker, '.' and ' ' are transparent, and any other character is an opaque gray
+     * derived from its code, so that different letters are different colors.
+     */
+    static BufferedImage createImage(String[] data) {
+        int h = data.length;
+        int w = data[0].length();
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+
+        for (int row = 0; row < h; row++) {
+            for (int col = 0; col < w; col++) {
+                char c = data[row].charAt(col);
+                int color = 0;
+                if (c == '*') {
+                    color = PatchInfo.BLACK_TICK;
+                } else if (c == 'R') {
+                    color = PatchInfo.RED_TICK;
+                } else if (c != '.' && c != ' ') {
+                    color = 0xFF000000 | (c * 0x10101);
+                }
+                image.setRGB(col, row, color);
+            }
+        }
+        return image;
+    }
+}
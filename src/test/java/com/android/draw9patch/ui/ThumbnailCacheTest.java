@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+public class ThumbnailCacheTest extends TestCase {
+    private File directory;
+    private File cacheDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("thumbnails", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        cacheDirectory = new File(directory, "cache");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File writeNinePatch(String name, int color) throws IOException {
+        BufferedImage image = new BufferedImage(10, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 1; x < 9; x++) {
+            for (int y = 1; y < 7; y++) {
+                image.setRGB(x, y, color);
+            }
+        }
+        image.setRGB(3, 0, PatchInfo.BLACK_TICK);
+        image.setRGB(0, 3, PatchInfo.BLACK_TICK);
+        File file = new File(directory, name);
+        ImageIO.write(image, "PNG", file);
+        return file;
+    }
+
+    public void testHitAndInvalidate() throws Exception {
+        File file = writeNinePatch("a.9.png", 0xff00ff00);
+        ThumbnailCache cache = new ThumbnailCache(cacheDirectory);
+        ThumbnailCache.Entry entry = cache.get(file);
+        assertEquals(0xff00ff00, entry.thumbnail.getRGB(0, 0));
+        assertEquals(1, entry.summary.patches);
+        assertEquals(10, entry.summary.width);
+
+        // a hit reads the thumbnail back from disk, even with a new cache over the directory
+        ThumbnailCache.Entry hit = new ThumbnailCache(cacheDirectory).get(file);
+        assertNotSame(entry.thumbnail, hit.thumbnail);
+        assertEquals(0xff00ff00, hit.thumbnail.getRGB(0, 0));
+        assertEquals(1, hit.summary.patches);
+
+        // changing the file invalidates its entry
+        writeNinePatch("a.9.png", 0xffff0000);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertEquals(0xffff0000, cache.get(file).thumbnail.getRGB(0, 0));
+    }
+
+    public void testPrune() throws Exception {
+        File a = writeNinePatch("a.9.png", 0xff00ff00);
+        File b = writeNinePatch("b.9.png", 0xff0000ff);
+        File c = writeNinePatch("c.9.png", 0xff000000);
+        ThumbnailCache cache = new ThumbnailCache(cacheDirectory);
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+        assertEquals(6, cacheDirectory.list().length);
+
+        // entries of deleted files go first
+        assertTrue(c.delete());
+        cache.prune(Long.MAX_VALUE);
+        assertEquals(4, cacheDirectory.list().length);
+
+        // then the least recently used ones, a hit counts as a use
+        long size = 0;
+        for (File file : cacheDirectory.listFiles()) {
+            assertTrue(file.setLastModified(1000000000000L));
+            size += file.length();
+        }
+        cache.get(b);
+        cache.prune(size - 1);
+        File[] left = cacheDirectory.listFiles();
+        assertEquals(2, left.length);
+        for (File file : left) {
+            if (file.getName().endsWith(".properties")) {
+                Properties properties = new Properties();
+                InputStream in = new FileInputStream(file);
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+                assertEquals(b.getAbsolutePath(), properties.getProperty("path"));
+            }
+        }
+
+        cache.prune(0);
+        assertEquals(0, cacheDirectory.list().length);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import junit.framework.TestCase;
+
+import java.awt.image.BufferedImage;
+
+public class UniformityHeatmapTest extends TestCase {
+    public void testShades() {
+        // columns a a b c c: the middle one differs on both sides
+        int[] shades = UniformityHeatmap.shades(new int[] { 0, 0, 4, 2, 0 }, 4);
+        assertEquals(shades[0], shades[1]);
+        assertEquals(shades[0], shades[3]);
+        assertEquals(shades[0], shades[4]);
+        assertEquals(0x40 + 0x9f * 2 / 4, shades[2] >>> 24);
+        assertFalse(shades[0] == shades[2]);
+    }
+
+    public void testHeatmap() {
+        BufferedImage image = new BufferedImage(6, 5, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 1; y < 4; y++) {
+            image.setRGB(1, y, 0xff0000ff);
+            image.setRGB(2, y, 0xff0000ff);
+            image.setRGB(3, y, 0xffffffff);
+        }
+        // a different border doesn't count
+        image.setRGB(2, 0, PatchInfo.BLACK_TICK);
+
+        UniformityHeatmap heatmap = new UniformityHeatmap(image, 3);
+        assertEquals(3, heatmap.contentVersion);
+        assertEquals(4, heatmap.columns.getWidth());
+        assertEquals(3, heatmap.rows.getHeight());
+        assertEquals(heatmap.columns.getRGB(0, 0), heatmap.columns.getRGB(1, 0));
+        assertEquals(0xffff2020, heatmap.columns.getRGB(2, 0) | 0xff000000);
+        assertEquals(heatmap.rows.getRGB(0, 0), heatmap.rows.getRGB(0, 2));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.draw9patch.ui;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PixelKernels} on the widest int vectors of the CPU, with scalar loops for the tails.
+ * Only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+class VectorKernels extends PixelKernels.Scalar {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    boolean isAccelerated() {
+        return SPECIES.length() >= 4;
+    }
+
+    @Override
+    int runEnd(int[] pixels, int from, int to) {
+        IntVector value = IntVector.broadcast(SPECIES, pixels[from]);
+        int i = from + 1;
+        for (int bound = to - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            VectorMask<Integer> different = IntVector.fromArray(SPECIES, pixels, i)
+                    .compare(VectorOperators.NE, value);
+            if (different.anyTrue()) {
+                return i + different.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            if (pixels[i] != pixels[from]) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    @Override
+    boolean equals(int[] a, int aFrom, int[] b, int bFrom, int length) {
+        int i = 0;
+        for (int bound = length - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            if (IntVector.fromArray(SPECIES, a, aFrom + i)
+                    .compare(VectorOperators.NE, IntVector.fromArray(SPECIES, b, bFrom + i))
+                    .anyTrue()) {
+                return false;
+            }
+        }
+        return super.equals(a, aFrom + i, b, bFrom + i, length - i);
+    }
+
+    @Override
+    int countDifferences(int[] a, int aFrom, int[] b, int bFrom, int length) {
+        int count = 0;
+        int i = 0;
+        for (int bound = length - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            count += IntVector.fromArray(SPECIES, a, aFrom + i)
+                    .compare(VectorOperators.NE, IntVector.fromArray(SPECIES, b, bFrom + i))
+                    .trueCount();
+        }
+        return count + super.countDifferences(a, aFrom + i, b, bFrom + i, length - i);
+    }
+
+    @Override
+    void addNeighbourDifferences(int[] pixels, int from, int length, int[] differences) {
+        int i = 1;
+        for (int bound = length - SPECIES.length(); i <= bound; i += SPECIES.length()) {
+            VectorMask<Integer> different = IntVector.fromArray(SPECIES, pixels, from + i)
+                    .compare(VectorOperators.NE,
+                            IntVector.fromArray(SPECIES, pixels, from + i - 1));
+            IntVector.fromArray(SPECIES, differences, i)
+                    .add(1, different)
+                    .intoArray(differences, i);
+        }
+        for (; i < length; i++) {
+            if (pixels[from + i] != pixels[from + i - 1]) {
+                differences[i]++;
+            }
+        }
+    }
+}